@@ -0,0 +1,128 @@
+/*
+ * Copyright 2010 The gwtquery plugins team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gwtquery.plugins.draggable.benchmark;
+
+import gwtquery.plugins.draggable.client.geom.Rect;
+import gwtquery.plugins.draggable.client.geom.RectStore;
+import gwtquery.plugins.draggable.client.geom.SnapIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search of the droppable under the mouse pointer, for each mouse move, on a
+ * board of adjacent drop zones.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DropHitTestBenchmark {
+
+  private static final int MOVES = 1024;
+
+  private static final int ZONE_WIDTH = 200;
+  private static final int ZONE_HEIGHT = 60;
+
+  @Param({"30", "3000"})
+  private int droppableCount;
+
+  private List<Rect> droppables;
+  private RectStore store;
+  private SnapIndex index;
+  private int[] pointerX;
+  private int[] pointerY;
+  private int move;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42);
+
+    // columns of a kanban board
+    int columns = 10;
+    int rows = (droppableCount + columns - 1) / columns;
+
+    droppables = new ArrayList<Rect>(droppableCount);
+    for (int i = 0; i < droppableCount; i++) {
+      droppables.add(new Rect((i % columns) * ZONE_WIDTH, (i / columns)
+          * ZONE_HEIGHT, ZONE_WIDTH, ZONE_HEIGHT));
+    }
+
+    pointerX = new int[MOVES];
+    pointerY = new int[MOVES];
+    for (int i = 0; i < MOVES; i++) {
+      pointerX[i] = random.nextInt(columns * ZONE_WIDTH);
+      pointerY[i] = random.nextInt(rows * ZONE_HEIGHT);
+    }
+
+    store = new RectStore(droppables);
+    index = new SnapIndex(store);
+  }
+
+  @Benchmark
+  public int scan() {
+    int i = move++ & (MOVES - 1);
+
+    for (int j = droppables.size() - 1; j >= 0; j--) {
+      if (droppables.get(j).contains(pointerX[i], pointerY[i])) {
+        return j;
+      }
+    }
+    return -1;
+  }
+
+  @Benchmark
+  public int scanStore() {
+    int i = move++ & (MOVES - 1);
+
+    for (int j = store.size() - 1; j >= 0; j--) {
+      if (store.contains(j, pointerX[i], pointerY[i])) {
+        return j;
+      }
+    }
+    return -1;
+  }
+
+  @Benchmark
+  public int indexed() {
+    int i = move++ & (MOVES - 1);
+
+    int count = index.query(pointerX[i], pointerY[i], pointerX[i],
+        pointerY[i]);
+    for (int j = count - 1; j >= 0; j--) {
+      int candidate = index.getCandidateIndex(j);
+      if (store.contains(candidate, pointerX[i], pointerY[i])) {
+        return candidate;
+      }
+    }
+    return -1;
+  }
+}
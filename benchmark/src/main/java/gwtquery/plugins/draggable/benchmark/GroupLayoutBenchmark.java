@@ -0,0 +1,90 @@
+/*
+ * Copyright 2010 The gwtquery plugins team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gwtquery.plugins.draggable.benchmark;
+
+import gwtquery.plugins.draggable.client.geom.GroupLayout;
+import gwtquery.plugins.draggable.client.geom.GroupLayout.Direction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Layout of the helpers of a multi-selection when the drag starts, for the
+ * DOWN, RIGHT and GRID grouping modes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class GroupLayoutBenchmark {
+
+  @Param({"DOWN", "RIGHT", "GRID"})
+  private Direction direction;
+
+  @Param({"10", "1000"})
+  private int helperCount;
+
+  private int[] widths;
+  private int[] heights;
+  private int[] lefts;
+  private int[] tops;
+
+  @Setup
+  public void setUp() {
+    widths = new int[helperCount];
+    heights = new int[helperCount];
+    lefts = new int[helperCount];
+    tops = new int[helperCount];
+    Arrays.fill(widths, 80);
+    Arrays.fill(heights, 30);
+  }
+
+  @Benchmark
+  public void layout(Blackhole blackhole) {
+    // a grid can only be placed all at once
+    if (direction == Direction.GRID) {
+      return;
+    }
+    GroupLayout layout = new GroupLayout(direction, 2, 100, 100, 80, 30);
+    for (int i = 0; i < helperCount; i++) {
+      layout.place(80, 30);
+      blackhole.consume(layout.getLeft());
+      blackhole.consume(layout.getTop());
+    }
+  }
+
+  @Benchmark
+  public void layoutAll(Blackhole blackhole) {
+    new GroupLayout(direction, 2, 100, 100, 80, 30).placeAll(helperCount,
+        widths, heights, lefts, tops);
+    blackhole.consume(lefts);
+    blackhole.consume(tops);
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2010 The gwtquery plugins team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gwtquery.plugins.draggable.benchmark;
+
+import gwtquery.plugins.draggable.client.geom.DragMath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Move of the followers of a multi-selection by the distance the initial
+ * draggable moved, as done by the delta multi-drag mode.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MultiSelectionDeltaBenchmark {
+
+  private static final int MOVES = 1024;
+
+  @Param({"10", "1000", "10000"})
+  private int followerCount;
+
+  @Param({"false", "true"})
+  private boolean containFollowers;
+
+  private int[] originalLeft;
+  private int[] originalTop;
+  private int[] left;
+  private int[] top;
+  private int[] deltaLeft;
+  private int[] deltaTop;
+  private int move;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42);
+
+    originalLeft = new int[followerCount];
+    originalTop = new int[followerCount];
+    left = new int[followerCount];
+    top = new int[followerCount];
+    for (int i = 0; i < followerCount; i++) {
+      originalLeft[i] = random.nextInt(1000);
+      originalTop[i] = random.nextInt(1000);
+    }
+
+    deltaLeft = new int[MOVES];
+    deltaTop = new int[MOVES];
+    for (int i = 0; i < MOVES; i++) {
+      deltaLeft[i] = random.nextInt(400) - 200;
+      deltaTop[i] = random.nextInt(400) - 200;
+    }
+  }
+
+  @Benchmark
+  public int[] applyDelta() {
+    int i = move++ & (MOVES - 1);
+    int dLeft = deltaLeft[i];
+    int dTop = deltaTop[i];
+
+    for (int j = 0; j < followerCount; j++) {
+      if (containFollowers) {
+        left[j] = DragMath.clamp(originalLeft[j] + dLeft, 0, 1000);
+        top[j] = DragMath.clamp(originalTop[j] + dTop, 0, 1000);
+      } else {
+        left[j] = originalLeft[j] + dLeft;
+        top[j] = originalTop[j] + dTop;
+      }
+    }
+    return left;
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2010 The gwtquery plugins team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gwtquery.plugins.draggable.benchmark;
+
+import gwtquery.plugins.draggable.client.geom.DragMath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Position of the helper computed for each mouse move, with a containment and
+ * a grid.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PositionBenchmark {
+
+  private static final int MOVES = 1024;
+
+  private static final int CLICK_LEFT = 12;
+  private static final int CLICK_TOP = 7;
+  private static final int ORIGINAL_PAGE_X = 400;
+  private static final int ORIGINAL_PAGE_Y = 300;
+  private static final int OFFSET_LEFT = 8;
+  private static final int OFFSET_TOP = 8;
+  private static final int GRID = 20;
+
+  private static final int CONTAINMENT_LEFT = 100;
+  private static final int CONTAINMENT_TOP = 50;
+  private static final int CONTAINMENT_RIGHT = 900;
+  private static final int CONTAINMENT_BOTTOM = 650;
+
+  private int[] pageX;
+  private int[] pageY;
+  private int move;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42);
+    pageX = new int[MOVES];
+    pageY = new int[MOVES];
+    for (int i = 0; i < MOVES; i++) {
+      pageX[i] = random.nextInt(1000);
+      pageY[i] = random.nextInt(800);
+    }
+  }
+
+  @Benchmark
+  public void containmentAndGrid(Blackhole blackhole) {
+    int i = move++ & (MOVES - 1);
+
+    int x = DragMath.contain(pageX[i], CLICK_LEFT, CONTAINMENT_LEFT,
+        CONTAINMENT_RIGHT);
+    int y = DragMath.contain(pageY[i], CLICK_TOP, CONTAINMENT_TOP,
+        CONTAINMENT_BOTTOM);
+    x = DragMath.snapToGrid(x, ORIGINAL_PAGE_X, GRID, CLICK_LEFT,
+        CONTAINMENT_LEFT, CONTAINMENT_RIGHT);
+    y = DragMath.snapToGrid(y, ORIGINAL_PAGE_Y, GRID, CLICK_TOP,
+        CONTAINMENT_TOP, CONTAINMENT_BOTTOM);
+
+    int left = DragMath.toPosition(x, CLICK_LEFT, OFFSET_LEFT, 0);
+    int top = DragMath.toPosition(y, CLICK_TOP, OFFSET_TOP, 0);
+    blackhole.consume(DragMath.toAbsolute(left, OFFSET_LEFT, 0));
+    blackhole.consume(DragMath.toAbsolute(top, OFFSET_TOP, 0));
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2010 The gwtquery plugins team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gwtquery.plugins.draggable.benchmark;
+
+import gwtquery.plugins.draggable.client.geom.Rect;
+import gwtquery.plugins.draggable.client.geom.RectStore;
+import gwtquery.plugins.draggable.client.geom.SnapEdges;
+import gwtquery.plugins.draggable.client.geom.SnapIndex;
+import gwtquery.plugins.draggable.client.geom.SnapResolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snap of the helper against a growing number of targets, for each mouse
+ * move.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SnapBenchmark {
+
+  private static final int MOVES = 1024;
+
+  private static final int HELPER_WIDTH = 60;
+  private static final int HELPER_HEIGHT = 40;
+  private static final int TARGET_SIZE = 50;
+  private static final int TOLERANCE = 20;
+
+  @Param({"10", "1000", "100000"})
+  private int targetCount;
+
+  private List<Rect> targets;
+  private RectStore store;
+  private SnapIndex index;
+  private SnapEdges edges;
+  private SnapResolver resolver;
+  private int[] helperLeft;
+  private int[] helperTop;
+  private int move;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42);
+
+    // the targets are spread on a square page, like a board of cards
+    int columns = (int) Math.ceil(Math.sqrt(targetCount));
+    int pageSize = columns * TARGET_SIZE * 2;
+
+    targets = new ArrayList<Rect>(targetCount);
+    for (int i = 0; i < targetCount; i++) {
+      targets.add(new Rect((i % columns) * TARGET_SIZE * 2
+          + random.nextInt(TARGET_SIZE), (i / columns) * TARGET_SIZE * 2
+          + random.nextInt(TARGET_SIZE), TARGET_SIZE, TARGET_SIZE));
+    }
+
+    helperLeft = new int[MOVES];
+    helperTop = new int[MOVES];
+    for (int i = 0; i < MOVES; i++) {
+      helperLeft[i] = random.nextInt(pageSize);
+      helperTop[i] = random.nextInt(pageSize);
+    }
+
+    store = new RectStore(targets);
+    index = new SnapIndex(store);
+    edges = new SnapEdges(store);
+    resolver = new SnapResolver().init(TOLERANCE, true, true);
+  }
+
+  @Benchmark
+  public void resolve(Blackhole blackhole) {
+    int i = move++ & (MOVES - 1);
+
+    resolver.start(helperLeft[i], helperTop[i], HELPER_WIDTH, HELPER_HEIGHT);
+    blackhole.consume(resolver.resolve(targets));
+    blackhole.consume(resolver.getLeft());
+    blackhole.consume(resolver.getTop());
+  }
+
+  @Benchmark
+  public void resolveStore(Blackhole blackhole) {
+    int i = move++ & (MOVES - 1);
+
+    resolver.start(helperLeft[i], helperTop[i], HELPER_WIDTH, HELPER_HEIGHT);
+    blackhole.consume(resolver.resolve(store));
+    blackhole.consume(resolver.getLeft());
+    blackhole.consume(resolver.getTop());
+  }
+
+  @Benchmark
+  public void resolveIndexed(Blackhole blackhole) {
+    int i = move++ & (MOVES - 1);
+
+    resolver.start(helperLeft[i], helperTop[i], HELPER_WIDTH, HELPER_HEIGHT);
+    blackhole.consume(resolver.resolve(index));
+    blackhole.consume(resolver.getLeft());
+    blackhole.consume(resolver.getTop());
+  }
+
+  @Benchmark
+  public void resolveSortedEdges(Blackhole blackhole) {
+    int i = move++ & (MOVES - 1);
+
+    resolver.start(helperLeft[i], helperTop[i], HELPER_WIDTH, HELPER_HEIGHT);
+    blackhole.consume(resolver.resolve(edges));
+    blackhole.consume(resolver.getLeft());
+    blackhole.consume(resolver.getTop());
+  }
+}
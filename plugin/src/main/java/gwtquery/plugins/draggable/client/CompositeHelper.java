@@ -0,0 +1,162 @@
+/*
+ * Copyright 2010 The gwtquery plugins team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gwtquery.plugins.draggable.client;
+
+import com.google.gwt.core.client.GWT;
+import com.google.gwt.dom.client.Document;
+import com.google.gwt.dom.client.Element;
+import com.google.gwt.dom.client.Style;
+import com.google.gwt.dom.client.Style.Position;
+import com.google.gwt.dom.client.Style.Unit;
+import com.google.gwt.dom.client.Style.Visibility;
+import com.google.gwt.query.client.GQuery.Offset;
+import gwtquery.plugins.draggable.client.Draggable.CssClassNames;
+import gwtquery.plugins.draggable.client.DraggableOptions.MultiDragMode;
+import gwtquery.plugins.draggable.client.impl.DraggableHandlerImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.gwt.query.client.GQuery.body;
+
+/**
+ * Helper showing all the followers of a multi-drag done with the
+ * {@link MultiDragMode#COMPOSITE} mode. The helpers of the followers are
+ * cloned in a single wrapper and hidden until the end of the drag. Only the
+ * wrapper is moved during the drag, whatever the size of the selection.
+ */
+final class CompositeHelper {
+
+  private static final DraggableHandlerImpl impl = GWT
+      .create(DraggableHandlerImpl.class);
+
+  /**
+   * Clone the helpers of the selected draggables other than the initial one
+   * in a new composite helper.
+   */
+  static CompositeHelper create(Element initialDraggable,
+                                List<Element> selectedDraggables) {
+    List<DraggableHandler> followers = new ArrayList<DraggableHandler>();
+    for (int i = 0; i < selectedDraggables.size(); i++) {
+      Element draggable = selectedDraggables.get(i);
+      if (draggable == initialDraggable) {
+        continue;
+      }
+      DraggableHandler handler = DraggableHandler.getInstance(draggable);
+      // the drag operation may have been stopped for this draggable
+      if (handler != null && handler.getDragContext() != null
+          && handler.getHelper() != null && handler.getHelper().size() > 0) {
+        followers.add(handler);
+      }
+    }
+
+    Element wrapper = Document.get().createDivElement();
+    wrapper.setClassName(CssClassNames.GWT_DRAGGABLE_COMPOSITE_HELPER);
+    Style wrapperStyle = wrapper.getStyle();
+    wrapperStyle.setPosition(Position.ABSOLUTE);
+    wrapperStyle.setLeft(0, Unit.PX);
+    wrapperStyle.setTop(0, Unit.PX);
+    Integer zIndex = DraggableHandler.getInstance(initialDraggable)
+        .getOptions().getZIndex();
+    if (zIndex != null) {
+      wrapperStyle.setZIndex(zIndex.intValue());
+    }
+    body.appendChild(wrapper);
+
+    // the only layout read, the clones are placed from the positions computed
+    // by the handlers
+    int wrapperLeft = wrapper.getAbsoluteLeft();
+    int wrapperTop = wrapper.getAbsoluteTop();
+
+    int count = followers.size();
+    Element[] helpers = new Element[count];
+    String[] visibilities = new String[count];
+    for (int i = 0; i < count; i++) {
+      DraggableHandler follower = followers.get(i);
+      Element helper = follower.getHelper().get(0);
+      Offset offset = follower.getOriginalOffset();
+      Offset followOffset = follower.getFollowOffset();
+
+      Element clone = helper.cloneNode(true).cast();
+      removeIds(clone);
+      impl.clearTranslate(clone);
+      Style cloneStyle = clone.getStyle();
+      cloneStyle.setPosition(Position.ABSOLUTE);
+      cloneStyle.setLeft(offset.left + followOffset.left - wrapperLeft,
+          Unit.PX);
+      cloneStyle.setTop(offset.top + followOffset.top - wrapperTop, Unit.PX);
+      wrapper.appendChild(clone);
+
+      helpers[i] = helper;
+      visibilities[i] = helper.getStyle().getVisibility();
+      helper.getStyle().setVisibility(Visibility.HIDDEN);
+    }
+
+    return new CompositeHelper(wrapper, helpers, visibilities);
+  }
+
+  /**
+   * Remove the ids of the element and of all its descendants, so that the
+   * clones don't duplicate the ids of the helpers in the document.
+   */
+  private static void removeIds(Element element) {
+    element.removeAttribute("id");
+    for (Element child = element.getFirstChildElement(); child != null;
+         child = child.getNextSiblingElement()) {
+      removeIds(child);
+    }
+  }
+
+  private final Element wrapper;
+  private final Element[] helpers;
+  private final String[] visibilities;
+  private final boolean transform;
+
+  private CompositeHelper(Element wrapper, Element[] helpers,
+                          String[] visibilities) {
+    this.wrapper = wrapper;
+    this.helpers = helpers;
+    this.visibilities = visibilities;
+    this.transform = impl.supportsTransform();
+  }
+
+  /**
+   * Move the clones by the given distance from their original position.
+   */
+  void move(int deltaLeft, int deltaTop) {
+    if (transform) {
+      impl.setTranslate(wrapper, deltaLeft, deltaTop);
+    } else {
+      wrapper.getStyle().setLeft(deltaLeft, Unit.PX);
+      wrapper.getStyle().setTop(deltaTop, Unit.PX);
+    }
+  }
+
+  /**
+   * Show the helpers of the followers again and remove the clones. The
+   * helpers have to be moved to their final position before.
+   */
+  void restore() {
+    for (int i = 0; i < helpers.length; i++) {
+      if (visibilities[i] == null || visibilities[i].length() == 0) {
+        helpers[i].getStyle().clearVisibility();
+      } else {
+        helpers[i].getStyle().setProperty("visibility", visibilities[i]);
+      }
+    }
+    wrapper.removeFromParent();
+  }
+}
@@ -16,20 +16,260 @@
 package gwtquery.plugins.draggable.client;
 
 import com.google.gwt.core.client.GWT;
+import com.google.gwt.core.client.JavaScriptObject;
 import com.google.gwt.dom.client.Element;
+import com.google.gwt.query.client.GQuery.Offset;
+import com.google.gwt.query.client.plugins.UiPlugin.Dimension;
 import com.google.gwt.query.client.plugins.events.GqEvent;
 import gwtquery.plugins.draggable.client.events.DragContext;
+import gwtquery.plugins.draggable.client.geom.IdSet;
+import gwtquery.plugins.draggable.client.geom.RectStore;
+import gwtquery.plugins.draggable.client.geom.SnapIndex;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * The goal of this class is to manage the interactions between draggable and droppable objects.
- * This implementation specifies the interface needed by this kind of manager but do nothing.
+ * <p/>
+ * This implementation keeps the droppables added with
+ * {@link #addDroppable(Element, String)} in one bucket per scope. When a drag
+ * starts, only the bucket of the scope of the dragged element is activated.
+ * Its droppables are measured once and indexed in a uniform grid, so that a
+ * mouse move only tests the droppables near the pointer. A draggable is
+ * dropped if the mouse pointer is over one of them when the drag stops. When
+ * several droppables are under the pointer, the last added wins.
+ * <p/>
+ * The droppables changed during a drag are tracked, so that
+ * {@link #update(DragContext)} only measures them again. The
+ * {@link HoverListener}s are notified when the helper starts or stops
+ * overlapping a droppable.
+ * <p/>
+ * Replace it with deferred binding to implement other interactions.
  *
  * @author Julien Dramaix (julien.dramaix@gmail.com, @jdramaix)
  */
 public class DragAndDropManager {
 
+  /**
+   * Listener notified when the helper of the initial draggable starts or
+   * stops overlapping a droppable of its scope. Can be used to highlight the
+   * drop zones.
+   */
+  public static interface HoverListener {
+    /**
+     * The helper stopped overlapping the droppable.
+     */
+    void onOut(Element droppable, DragContext ctx);
+
+    /**
+     * The helper started overlapping the droppable.
+     */
+    void onOver(Element droppable, DragContext ctx);
+  }
+
+  /**
+   * Droppables activated for the current drag operation.
+   */
+  private static class ActiveDroppables {
+    // the bucket of the scope, read when the droppables are updated
+    private final Set<Element> scopeDroppables;
+    // a removed droppable keeps its id until the next full measure
+    private final List<Element> droppables = new ArrayList<Element>();
+    private final RectStore bounds = new RectStore();
+    // offset parent of each droppable when it was measured
+    private final List<Element> offsetParents = new ArrayList<Element>();
+    private final Map<Element, Integer> positions =
+        new HashMap<Element, Integer>();
+    private final IdSet removed = new IdSet(0);
+    private SnapIndex index;
+    private Element over;
+
+    // ids of the droppables overlapped by the helper, and the droppables
+    // which lost their id while overlapped
+    private IdSet overlapped = new IdSet(0);
+    private IdSet nextOverlapped = new IdSet(0);
+    private final List<Element> lostOverlapped = new ArrayList<Element>();
+
+    private ActiveDroppables(Set<Element> scopeDroppables) {
+      this.scopeDroppables = scopeDroppables;
+    }
+
+    private void addBounds(Element droppable) {
+      // the id of a droppable is its position in the list
+      bounds.add(droppable.getAbsoluteLeft(), droppable.getAbsoluteTop(),
+          droppable.getOffsetWidth(), droppable.getOffsetHeight(),
+          droppables.size() - 1);
+      offsetParents.add(droppable.getOffsetParent());
+    }
+
+    private Element findDroppable(int pageX, int pageY) {
+      // only the droppables of the cell under the pointer are tested, the
+      // last added droppable wins
+      int count = index.query(pageX, pageY, pageX, pageY);
+      for (int i = count - 1; i >= 0; i--) {
+        int id = index.getCandidateIndex(i);
+        if (!removed.contains(id)
+            && bounds.contains(id, pageX, pageY)) {
+          return droppables.get(id);
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Notify the listeners of the droppables that the helper started or
+     * stopped overlapping. Only the droppables close to the helper are tested
+     * and only the changes are compared.
+     */
+    private void hover(DragContext ctx, int left, int top, int right,
+                       int bottom, List<HoverListener> listeners) {
+      int count = index.query(left, top, right, bottom);
+      for (int i = 0; i < count; i++) {
+        int id = index.getCandidateIndex(i);
+        if (!removed.contains(id) && bounds.getLeft(id) < right
+            && left < bounds.getRight(id) && bounds.getTop(id) < bottom
+            && top < bounds.getBottom(id)) {
+          nextOverlapped.add(id);
+        }
+      }
+
+      for (int i = 0; i < lostOverlapped.size(); i++) {
+        fireOut(ctx, lostOverlapped.get(i), listeners);
+      }
+      lostOverlapped.clear();
+
+      // symmetric difference of the two sets
+      for (int i = 0; i < overlapped.size(); i++) {
+        int id = overlapped.get(i);
+        if (!nextOverlapped.contains(id)) {
+          fireOut(ctx, droppables.get(id), listeners);
+        }
+      }
+      for (int i = 0; i < nextOverlapped.size(); i++) {
+        int id = nextOverlapped.get(i);
+        if (!overlapped.contains(id)) {
+          fireOver(ctx, droppables.get(id), listeners);
+        }
+      }
+
+      IdSet previous = overlapped;
+      overlapped = nextOverlapped;
+      nextOverlapped = previous;
+      nextOverlapped.clear();
+    }
+
+    /**
+     * Notify the listeners that the helper doesn't overlap any droppable
+     * anymore.
+     */
+    private void leaveAll(DragContext ctx, List<HoverListener> listeners) {
+      for (int i = 0; i < lostOverlapped.size(); i++) {
+        fireOut(ctx, lostOverlapped.get(i), listeners);
+      }
+      lostOverlapped.clear();
+      for (int i = 0; i < overlapped.size(); i++) {
+        fireOut(ctx, droppables.get(overlapped.get(i)), listeners);
+      }
+      overlapped.clear();
+    }
+
+    private void measure() {
+      // the ids change, keep the overlapped droppables by element
+      List<Element> previous = new ArrayList<Element>();
+      for (int i = 0; i < overlapped.size(); i++) {
+        previous.add(droppables.get(overlapped.get(i)));
+      }
+      overlapped.clear();
+      removed.clear();
+
+      droppables.clear();
+      bounds.clear();
+      offsetParents.clear();
+      positions.clear();
+      for (Element droppable : scopeDroppables) {
+        positions.put(droppable, droppables.size());
+        droppables.add(droppable);
+        addBounds(droppable);
+      }
+      index = new SnapIndex(bounds);
+
+      for (Element droppable : previous) {
+        Integer position = positions.get(droppable);
+        if (position != null) {
+          overlapped.add(position);
+        } else {
+          lostOverlapped.add(droppable);
+        }
+      }
+    }
+
+    /**
+     * Move the droppables scrolled with the element by the opposite of the
+     * scroll delta, without reading the DOM. A droppable inside the element
+     * is known to scroll with it if its offset parent is inside the element
+     * too, the other ones are added to the dirty droppables.
+     */
+    private void scroll(Element scrolledElement, int deltaLeft, int deltaTop,
+                        Collection<Element> dirtyDroppables) {
+      for (int id = 0; id < droppables.size(); id++) {
+        Element droppable = droppables.get(id);
+        if (removed.contains(id) || droppable == scrolledElement
+            || !scrolledElement.isOrHasChild(droppable)) {
+          continue;
+        }
+        Element offsetParent = offsetParents.get(id);
+        if (offsetParent != null
+            && scrolledElement.isOrHasChild(offsetParent)) {
+          bounds.translate(id, -deltaLeft, -deltaTop);
+          index.invalidate(id);
+        } else {
+          dirtyDroppables.add(droppable);
+        }
+      }
+    }
+
+    /**
+     * Measure and index again the given droppables only.
+     */
+    private void update(Collection<Element> dirtyDroppables) {
+      for (Element droppable : dirtyDroppables) {
+        Integer position = positions.get(droppable);
+        boolean active = scopeDroppables.contains(droppable);
+
+        if (position == null) {
+          if (active) {
+            positions.put(droppable, droppables.size());
+            droppables.add(droppable);
+            addBounds(droppable);
+            index.invalidate(bounds.size() - 1);
+          }
+        } else if (!active) {
+          removed.add(position);
+          positions.remove(droppable);
+          if (over == droppable) {
+            over = null;
+          }
+        } else {
+          bounds.set(position, droppable.getAbsoluteLeft(),
+              droppable.getAbsoluteTop(), droppable.getOffsetWidth(),
+              droppable.getOffsetHeight());
+          offsetParents.set(position, droppable.getOffsetParent());
+          index.invalidate(position);
+        }
+      }
+    }
+  }
+
+  private static final DragStateKey<ActiveDroppables> ACTIVE_DROPPABLES_KEY =
+      new DragStateKey<ActiveDroppables>("__activeDroppables");
+
   private static DragAndDropManager INSTANCE = GWT
       .create(DragAndDropManager.class);
 
@@ -42,6 +282,57 @@ public class DragAndDropManager {
     return INSTANCE;
   }
 
+  private static void fireOut(DragContext ctx, Element droppable,
+                              List<HoverListener> listeners) {
+    for (int i = 0; i < listeners.size(); i++) {
+      listeners.get(i).onOut(droppable, ctx);
+    }
+  }
+
+  private static void fireOver(DragContext ctx, Element droppable,
+                               List<HoverListener> listeners) {
+    for (int i = 0; i < listeners.size(); i++) {
+      listeners.get(i).onOver(droppable, ctx);
+    }
+  }
+
+  private static native JavaScriptObject createResizeObserver(
+      DragAndDropManager manager) /*-{
+      if (!$wnd.ResizeObserver) {
+          return null;
+      }
+      return new $wnd.ResizeObserver($entry(function (entries) {
+          for (var i = 0; i < entries.length; i++) {
+              manager.@gwtquery.plugins.draggable.client.DragAndDropManager::markDirty(Lcom/google/gwt/dom/client/Element;)(entries[i].target);
+          }
+      }));
+  }-*/;
+
+  private static native void observe(JavaScriptObject resizeObserver,
+                                     Element droppable) /*-{
+      resizeObserver.observe(droppable);
+  }-*/;
+
+  private static native void unobserve(JavaScriptObject resizeObserver,
+                                       Element droppable) /*-{
+      resizeObserver.unobserve(droppable);
+  }-*/;
+
+  private Map<String, Set<Element>> droppablesByScope =
+      new HashMap<String, Set<Element>>();
+
+  // droppables added, removed or resized since they were last measured,
+  // recorded during a drag only
+  private Set<Element> dirtyDroppables = new LinkedHashSet<Element>();
+
+  // handler of the last draggable whose droppables were activated
+  private DraggableHandler activeHandler;
+
+  private List<HoverListener> hoverListeners = new ArrayList<HoverListener>();
+
+  private JavaScriptObject resizeObserver;
+  private boolean resizeObserverCreated = false;
+
   /**
    * Link a droppable with the specified scope <code>scope</code>
    *
@@ -49,6 +340,23 @@ public class DragAndDropManager {
    * @param scope
    */
   public void addDroppable(Element droppable, String scope) {
+    if (getScopeDroppables(scope).add(droppable)) {
+      addDirty(droppable);
+      JavaScriptObject observer = getResizeObserver();
+      if (observer != null) {
+        observe(observer, droppable);
+      }
+    }
+  }
+
+  /**
+   * Add a listener notified when the helper starts or stops overlapping a
+   * droppable.
+   *
+   * @param listener
+   */
+  public void addHoverListener(HoverListener listener) {
+    hoverListeners.add(listener);
   }
 
   /**
@@ -58,6 +366,25 @@ public class DragAndDropManager {
    * @param e
    */
   public void drag(DragContext ctx, GqEvent e) {
+    // the selected draggables share the droppables of the initial one
+    if (ctx.getDraggable() != ctx.getInitialDraggable()) {
+      return;
+    }
+    ActiveDroppables active = getActiveDroppables(ctx);
+    if (active == null) {
+      return;
+    }
+    active.over = active.findDroppable(e.pageX(), e.pageY());
+
+    if (!hoverListeners.isEmpty()) {
+      DraggableHandler handler = DraggableHandler.getInstance(ctx
+          .getDraggable());
+      Offset position = handler.getAbsolutePosition();
+      Dimension dimension = handler.getHelperDimension();
+      active.hover(ctx, position.left, position.top, position.left
+          + dimension.getWidth(), position.top + dimension.getHeight(),
+          hoverListeners);
+    }
   }
 
 
@@ -69,7 +396,25 @@ public class DragAndDropManager {
    * @return
    */
   public boolean drop(DragContext ctx, GqEvent e) {
-    return false;
+    ActiveDroppables active = getActiveDroppables(ctx);
+    if (active == null) {
+      return false;
+    }
+    active.over = active.findDroppable(e.pageX(), e.pageY());
+    active.leaveAll(ctx, hoverListeners);
+
+    // the drag states are cleared before the deferred stop event is fired,
+    // the droppable is kept by the contexts of the selection
+    ctx.setOverDroppable(active.over);
+    List<Element> selectedDraggables = ctx.getSelectedDraggables();
+    for (int i = 0; i < selectedDraggables.size(); i++) {
+      DraggableHandler handler = DraggableHandler.getInstance(
+          selectedDraggables.get(i));
+      if (handler != null && handler.getDragContext() != null) {
+        handler.getDragContext().setOverDroppable(active.over);
+      }
+    }
+    return active.over != null;
   }
 
 
@@ -77,26 +422,221 @@ public class DragAndDropManager {
    * Return the list of droppable elements with the scope <code>scope</code>
    *
    * @param scope
-   * @return
+   * @return a read-only view of the droppables, in the order they were added
    */
   public Collection<Element> getDroppablesByScope(String scope) {
-    return null;
+    Set<Element> droppables = droppablesByScope.get(scope);
+    if (droppables == null) {
+      return Collections.emptySet();
+    }
+    return Collections.unmodifiableSet(droppables);
   }
 
+  /**
+   * Return the droppable under the mouse pointer at the last drag or drop
+   * of the draggable, null if none. Once dropped, the droppable is kept by
+   * the context, so it can be read by the handlers of the
+   * {@link gwtquery.plugins.draggable.client.events.DragStopEvent}.
+   *
+   * @param ctx
+   * @return
+   */
+  public Element getOverDroppable(DragContext ctx) {
+    ActiveDroppables active = getActiveDroppables(ctx);
+    return active != null ? active.over : ctx.getOverDroppable();
+  }
+
+  /**
+   * Activate the droppables having the scope of the draggable and measure
+   * them.
+   *
+   * @param ctx
+   * @param e
+   */
   public void initialize(DragContext ctx, GqEvent e) {
+    // the selected draggables share the droppables of the initial one
+    if (ctx.getDraggable() != ctx.getInitialDraggable()) {
+      return;
+    }
+    DraggableHandler handler = DraggableHandler.getInstance(ctx.getDraggable());
+    ActiveDroppables active = handler.getDragState(ACTIVE_DROPPABLES_KEY);
+    if (active == null) {
+      activate(handler);
+    } else {
+      measure(active);
+    }
   }
 
 
+  /**
+   * Mark a droppable as changed. It will be measured again at the next call
+   * to {@link #update(DragContext)}. The droppables are marked automatically
+   * when they are added, removed, or resized in the browsers supporting
+   * <code>ResizeObserver</code>. Call this method when a droppable moves.
+   * Nothing is recorded outside of a drag operation, all the droppables are
+   * measured at the start of the drag.
+   *
+   * @param droppable
+   */
+  public void markDirty(Element droppable) {
+    addDirty(droppable);
+  }
+
   public boolean isHandleDroppable(DragContext ctx) {
-    return false;
+    DraggableHandler handler = DraggableHandler.getInstance(ctx.getDraggable());
+    Set<Element> droppables = droppablesByScope.get(handler.getOptions()
+        .getScope());
+    return droppables != null && !droppables.isEmpty();
+  }
+
+  /**
+   * Remove a listener added with {@link #addHoverListener(HoverListener)}.
+   *
+   * @param listener
+   */
+  public void removeHoverListener(HoverListener listener) {
+    hoverListeners.remove(listener);
+  }
+
+  /**
+   * Remove the link between a droppable and the specified scope
+   * <code>scope</code>. The drag operation in progress is not affected
+   * until the next call to {@link #update(DragContext)}.
+   *
+   * @param droppable
+   * @param scope
+   */
+  public void removeDroppable(Element droppable, String scope) {
+    Set<Element> droppables = droppablesByScope.get(scope);
+    if (droppables == null || !droppables.remove(droppable)) {
+      return;
+    }
+    if (isActive()) {
+      // removed from the active droppables at the next update
+      dirtyDroppables.add(droppable);
+    } else {
+      dirtyDroppables.remove(droppable);
+    }
+    if (resizeObserver != null && !isDroppable(droppable)) {
+      unobserve(resizeObserver, droppable);
+    }
+  }
+
+  /**
+   * Method called when an element scrolled during the drag operation. The
+   * droppables inside this element moved by the opposite of the scroll delta,
+   * their cached geometry is shifted instead of measured again. Only the
+   * droppables whose position relatively to the scrolled element is unknown
+   * are measured again. The scroll of the document doesn't change the page
+   * coordinates of the droppables.
+   *
+   * @param ctx
+   * @param e
+   * @param scrolledElement the element that scrolled, null if the document
+   *                        scrolled
+   * @param deltaLeft       the variation of the scrollLeft of the element
+   * @param deltaTop        the variation of the scrollTop of the element
+   */
+  public void scroll(DragContext ctx, GqEvent e, Element scrolledElement,
+                     int deltaLeft, int deltaTop) {
+    // the selected draggables share the droppables of the initial one
+    if (scrolledElement == null
+        || ctx.getDraggable() != ctx.getInitialDraggable()) {
+      return;
+    }
+    ActiveDroppables active = getActiveDroppables(ctx);
+    if (active == null) {
+      return;
+    }
+    active.scroll(scrolledElement, deltaLeft, deltaTop, dirtyDroppables);
+    update(ctx);
   }
 
   /**
    * Use this method when droppable elements change dynamically during a drag
    * operation and you want to take into account these changes for the drop
    * operation.
+   * <p/>
+   * Only the droppables added, removed or marked with
+   * {@link #markDirty(Element)} since the last measure are measured and
+   * indexed again.
    */
   public void update(DragContext ctx) {
+    ActiveDroppables active = getActiveDroppables(ctx);
+    // nothing to update if the droppables were not activated
+    if (active != null && !dirtyDroppables.isEmpty()) {
+      active.update(dirtyDroppables);
+      dirtyDroppables.clear();
+    }
+  }
+
+  private void activate(DraggableHandler handler) {
+    ActiveDroppables active = new ActiveDroppables(getScopeDroppables(handler
+        .getOptions().getScope()));
+    measure(active);
+    handler.setDragState(ACTIVE_DROPPABLES_KEY, active);
+    activeHandler = handler;
+  }
+
+  private void addDirty(Element droppable) {
+    if (isActive()) {
+      dirtyDroppables.add(droppable);
+    } else {
+      // all the droppables are measured at the start of the next drag
+      dirtyDroppables.clear();
+    }
+  }
+
+  private ActiveDroppables getActiveDroppables(DragContext ctx) {
+    DraggableHandler handler = DraggableHandler.getInstance(ctx
+        .getInitialDraggable());
+    return handler != null ? handler.getDragState(ACTIVE_DROPPABLES_KEY) : null;
+  }
+
+  private JavaScriptObject getResizeObserver() {
+    if (!resizeObserverCreated) {
+      resizeObserver = createResizeObserver(this);
+      resizeObserverCreated = true;
+    }
+    return resizeObserver;
+  }
+
+  private Set<Element> getScopeDroppables(String scope) {
+    // the buckets are never removed, the active droppables keep a reference
+    // to theirs
+    Set<Element> droppables = droppablesByScope.get(scope);
+    if (droppables == null) {
+      droppables = new LinkedHashSet<Element>();
+      droppablesByScope.put(scope, droppables);
+    }
+    return droppables;
+  }
+
+  /**
+   * @return true if the droppables are activated for a drag in progress. The
+   *         drag state of the handler is cleared when the drag stops.
+   */
+  private boolean isActive() {
+    if (activeHandler != null
+        && activeHandler.getDragState(ACTIVE_DROPPABLES_KEY) == null) {
+      activeHandler = null;
+    }
+    return activeHandler != null;
+  }
+
+  private boolean isDroppable(Element element) {
+    for (Set<Element> droppables : droppablesByScope.values()) {
+      if (droppables.contains(element)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void measure(ActiveDroppables active) {
+    // all the droppables are measured, the changes are taken into account
+    dirtyDroppables.clear();
+    active.measure();
   }
 
 }
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2010 The gwtquery plugins team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gwtquery.plugins.draggable.client;
+
+import com.google.gwt.dom.client.Element;
+import com.google.gwt.dom.client.Node;
+import com.google.gwt.user.client.Window;
+
+import static com.google.gwt.query.client.GQuery.document;
+
+/**
+ * Values used to compute the position of the helper that don't change during
+ * a drag operation. The frame is resolved once when the drag starts so a mouse
+ * move only needs integer arithmetic and one read of the scroll offsets.
+ */
+public final class DragFrame {
+
+  /**
+   * Css position of the helper.
+   */
+  public static enum PositionType {
+    ABSOLUTE, FIXED, RELATIVE, STATIC;
+
+    public static PositionType fromCss(String position) {
+      if ("absolute".equals(position)) {
+        return ABSOLUTE;
+      }
+      if ("fixed".equals(position)) {
+        return FIXED;
+      }
+      if ("relative".equals(position)) {
+        return RELATIVE;
+      }
+      return STATIC;
+    }
+  }
+
+  /**
+   * Where the scroll offsets impacting the position of the helper are read.
+   */
+  private static enum ScrollSource {
+    NONE, WINDOW, DOCUMENT, ELEMENT;
+
+    static ScrollSource of(Element e) {
+      if (e == null) {
+        return NONE;
+      }
+      if (e.getNodeName() == null) {
+        return WINDOW;
+      }
+      if ((Node) e == document) {
+        return DOCUMENT;
+      }
+      return ELEMENT;
+    }
+  }
+
+  private final PositionType positionType;
+  private final Element offsetParent;
+  private final Element scrollElement;
+  private final ScrollSource scrollSource;
+  // 1 if the scroll is added to the position, -1 if it is subtracted
+  private final int scrollSign;
+  // offset of the parent and relative offset of the helper
+  private final int offsetLeft;
+  private final int offsetTop;
+  private final boolean contained;
+  private final int containmentLeft;
+  private final int containmentTop;
+  private final int containmentRight;
+  private final int containmentBottom;
+  private final boolean gridded;
+  private final int gridX;
+  private final int gridY;
+
+  /**
+   * @param scrollElement the element whose scroll offsets impact the position
+   *                      of the helper, null if the scroll doesn't impact it
+   * @param containment   {left, top, right, bottom} or null
+   * @param grid          {x, y} or null
+   */
+  DragFrame(PositionType positionType, Element offsetParent,
+            Element scrollElement, int offsetLeft, int offsetTop,
+            int[] containment, int[] grid) {
+    this.positionType = positionType;
+    this.offsetParent = offsetParent;
+    this.scrollElement = scrollElement;
+    this.scrollSource = ScrollSource.of(scrollElement);
+    this.scrollSign = positionType == PositionType.FIXED ? -1 : 1;
+    this.offsetLeft = offsetLeft;
+    this.offsetTop = offsetTop;
+
+    contained = containment != null && containment.length == 4;
+    containmentLeft = contained ? containment[0] : 0;
+    containmentTop = contained ? containment[1] : 0;
+    containmentRight = contained ? containment[2] : 0;
+    containmentBottom = contained ? containment[3] : 0;
+
+    gridded = grid != null;
+    gridX = grid != null ? grid[0] : 0;
+    gridY = grid != null ? grid[1] : 0;
+  }
+
+  public int getContainmentBottom() {
+    return containmentBottom;
+  }
+
+  public int getContainmentLeft() {
+    return containmentLeft;
+  }
+
+  public int getContainmentRight() {
+    return containmentRight;
+  }
+
+  public int getContainmentTop() {
+    return containmentTop;
+  }
+
+  /**
+   * @return the width of a cell of the grid, 0 if there is no grid
+   */
+  public int getGridX() {
+    return gridX;
+  }
+
+  /**
+   * @return the height of a cell of the grid, 0 if there is no grid
+   */
+  public int getGridY() {
+    return gridY;
+  }
+
+  /**
+   * @return the sum of the left offset of the offset parent and of the
+   *         relative offset of the helper
+   */
+  public int getOffsetLeft() {
+    return offsetLeft;
+  }
+
+  public Element getOffsetParent() {
+    return offsetParent;
+  }
+
+  /**
+   * @return the sum of the top offset of the offset parent and of the relative
+   *         offset of the helper
+   */
+  public int getOffsetTop() {
+    return offsetTop;
+  }
+
+  public PositionType getPositionType() {
+    return positionType;
+  }
+
+  /**
+   * @return the element whose scroll offsets impact the position of the
+   *         helper, or null
+   */
+  public Element getScrollElement() {
+    return scrollElement;
+  }
+
+  public boolean hasGrid() {
+    return gridded;
+  }
+
+  public boolean isContained() {
+    return contained;
+  }
+
+  /**
+   * @return the left scroll to add to the position of the helper
+   */
+  public int readScrollLeft() {
+    switch (scrollSource) {
+      case WINDOW:
+        return scrollSign * Window.getScrollLeft();
+      case DOCUMENT:
+        return scrollSign * document.getScrollLeft();
+      case ELEMENT:
+        return scrollSign * scrollElement.getScrollLeft();
+      default:
+        return 0;
+    }
+  }
+
+  /**
+   * @return the top scroll to add to the position of the helper
+   */
+  public int readScrollTop() {
+    switch (scrollSource) {
+      case WINDOW:
+        return scrollSign * Window.getScrollTop();
+      case DOCUMENT:
+        return scrollSign * document.getScrollTop();
+      case ELEMENT:
+        return scrollSign * scrollElement.getScrollTop();
+      default:
+        return 0;
+    }
+  }
+}
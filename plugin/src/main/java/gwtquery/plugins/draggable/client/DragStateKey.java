@@ -0,0 +1,53 @@
+/*
+ * Copyright 2010 The gwtquery plugins team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gwtquery.plugins.draggable.client;
+
+/**
+ * Key of a state kept by a plugin during a drag operation. The state is
+ * stored in a slot of the {@link DraggableHandler}, allocated when the drag
+ * starts and released when it stops.
+ * <p/>
+ * Keys should be created once, as constants. Each key owns a slot index, so
+ * reading a state is an array access instead of a lookup in the data of the
+ * draggable element.
+ *
+ * @param <T> the type of the state
+ */
+public final class DragStateKey<T> {
+
+  private static int count;
+
+  static int getCount() {
+    return count;
+  }
+
+  private final int index;
+  private final String name;
+
+  public DragStateKey(String name) {
+    this.name = name;
+    this.index = count++;
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+
+  int getIndex() {
+    return index;
+  }
+}
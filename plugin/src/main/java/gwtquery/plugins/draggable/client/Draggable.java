@@ -15,6 +15,9 @@
  */
 package gwtquery.plugins.draggable.client;
 
+import com.google.gwt.animation.client.AnimationScheduler;
+import com.google.gwt.animation.client.AnimationScheduler.AnimationCallback;
+import com.google.gwt.animation.client.AnimationScheduler.AnimationHandle;
 import com.google.gwt.core.client.GWT;
 import com.google.gwt.core.client.Scheduler;
 import com.google.gwt.core.client.Scheduler.ScheduledCommand;
@@ -25,21 +28,25 @@ import com.google.gwt.event.shared.HasHandlers;
 import com.google.gwt.event.shared.UmbrellaException;
 import com.google.gwt.query.client.Function;
 import com.google.gwt.query.client.GQuery;
+import com.google.gwt.query.client.GQuery.Offset;
 import com.google.gwt.query.client.plugins.MousePlugin;
 import com.google.gwt.query.client.plugins.Plugin;
 import com.google.gwt.query.client.plugins.events.GqEvent;
 import gwtquery.plugins.draggable.client.DraggableOptions.DragFunction;
 import gwtquery.plugins.draggable.client.DraggableOptions.HelperType;
+import gwtquery.plugins.draggable.client.DraggableOptions.MultiDragMode;
 import gwtquery.plugins.draggable.client.DraggableOptions.RevertOption;
 import gwtquery.plugins.draggable.client.DraggableOptions.SelectFunction;
 import gwtquery.plugins.draggable.client.events.BeforeDragStartEvent;
 import gwtquery.plugins.draggable.client.events.DragContext;
-import gwtquery.plugins.draggable.client.events.DragEvent;
 import gwtquery.plugins.draggable.client.events.DragStartEvent;
 import gwtquery.plugins.draggable.client.events.DragStopEvent;
 import gwtquery.plugins.draggable.client.events.DraggableSelectedEvent;
+import gwtquery.plugins.draggable.client.events.DraggableSelectionChangedEvent;
 import gwtquery.plugins.draggable.client.events.DraggableUnselectedEvent;
+import gwtquery.plugins.draggable.client.plugins.BatchedDraggablePlugin;
 import gwtquery.plugins.draggable.client.plugins.CursorPlugin;
+import gwtquery.plugins.draggable.client.plugins.DragPhase;
 import gwtquery.plugins.draggable.client.plugins.DraggablePlugin;
 import gwtquery.plugins.draggable.client.plugins.GroupSelectedPlugin;
 import gwtquery.plugins.draggable.client.plugins.OpacityPlugin;
@@ -49,7 +56,8 @@ import gwtquery.plugins.draggable.client.plugins.StackPlugin;
 import gwtquery.plugins.draggable.client.plugins.ZIndexPlugin;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -63,49 +71,51 @@ public class Draggable extends MousePlugin {
    */
   public static interface CssClassNames {
     String GWT_DRAGGABLE = "gwtQuery-draggable";
+    String GWT_DRAGGABLE_COMPOSITE_HELPER =
+        "gwtQuery-draggable-composite-helper";
     String GWT_DRAGGABLE_DISABLED = "gwtQuery-draggable-disabled";
     String GWT_DRAGGABLE_DRAGGING = "gwtQuery-draggable-dragging";
   }
 
-  private class DragCaller extends StartCaller {
-
-    public DragCaller(DragContext ctx, DraggableHandler dragHandler, GqEvent e) {
-      super(ctx, dragHandler, e);
-    }
-
-    public void call(DraggablePlugin plugin) {
-      plugin.onDrag(dragHandler, ctx, e);
-    }
-  }
-
-  private static interface PluginCaller {
-    void call(DraggablePlugin plugin);
-  }
-
-  private class StartCaller implements PluginCaller {
-    protected DragContext ctx;
-    protected DraggableHandler dragHandler;
-    protected GqEvent e;
-
-    public StartCaller(DragContext ctx, DraggableHandler dragHandler, GqEvent e) {
+  /**
+   * Call the plugins for one draggable during a phase. The same instance can be
+   * reused for several draggables.
+   */
+  private static class PluginCaller {
+    private DragContext ctx;
+    private DraggableHandler dragHandler;
+    private GqEvent e;
+    private DragPhase phase;
+
+    public PluginCaller init(DragPhase phase, DragContext ctx,
+                             DraggableHandler dragHandler, GqEvent e) {
+      this.phase = phase;
       this.ctx = ctx;
       this.dragHandler = dragHandler;
       this.e = e;
+      return this;
     }
 
-    public void call(DraggablePlugin plugin) {
-      plugin.onStart(dragHandler, ctx, e);
+    public void measure(BatchedDraggablePlugin plugin) {
+      plugin.measure(phase, dragHandler, ctx, e);
     }
-  }
 
-  private class StopCaller extends StartCaller {
-
-    public StopCaller(DragContext ctx, DraggableHandler dragHandler, GqEvent e) {
-      super(ctx, dragHandler, e);
-    }
+    public void mutate(DraggablePlugin plugin) {
+      if (plugin instanceof BatchedDraggablePlugin) {
+        ((BatchedDraggablePlugin) plugin).mutate(phase, dragHandler, ctx, e);
+        return;
+      }
 
-    public void call(DraggablePlugin plugin) {
-      plugin.onStop(dragHandler, ctx, e);
+      switch (phase) {
+        case START:
+          plugin.onStart(dragHandler, ctx, e);
+          break;
+        case DRAG:
+          plugin.onDrag(dragHandler, ctx, e);
+          break;
+        default:
+          plugin.onStop(dragHandler, ctx, e);
+      }
     }
   }
 
@@ -113,7 +123,14 @@ public class Draggable extends MousePlugin {
 
   public static final String DRAGGABLE_HANDLER_KEY = "draggableHandler";
 
-  static List<Element> selectedDraggables;
+  private static final DragStateKey<CompositeHelper> COMPOSITE_HELPER_KEY =
+      new DragStateKey<CompositeHelper>("__compositeHelper");
+  private static final DragStateKey<Draggable> DRAGGABLE_KEY =
+      new DragStateKey<Draggable>("__draggable");
+  private static final DragStateKey<Boolean> IS_DROPPED_KEY =
+      new DragStateKey<Boolean>("_is_dropped");
+
+  static SelectionSet<Element> selectedDraggables;
 
   private static Map<String, DraggablePlugin> draggablePlugins;
 
@@ -134,21 +151,56 @@ public class Draggable extends MousePlugin {
     registerDraggablePlugin(new SnapPlugin());
     registerDraggablePlugin(new GroupSelectedPlugin());
 
-    selectedDraggables = new ArrayList<Element>();
+    selectedDraggables = new SelectionSet<Element>();
+  }
+
+  /**
+   * Run a drag step of the whole selection without a mouse move, e.g. when the
+   * page scrolled under the pointer. The followers and the composite helper
+   * are moved as for a mouse move.
+   *
+   * @param ctx
+   *          the context of the initial draggable
+   * @param event
+   *          the last mouse event of the drag
+   */
+  public static void refreshDrag(DragContext ctx, GqEvent event) {
+    Element initialDraggable = ctx.getInitialDraggable();
+    DraggableHandler handler = DraggableHandler.getInstance(initialDraggable);
+    Draggable draggable = handler != null ? handler
+        .getDragState(DRAGGABLE_KEY) : null;
+    if (draggable != null) {
+      draggable.dragSelection(initialDraggable, event);
+    }
   }
 
   /**
-   * Register a draggable plugin that will be called during the drag operation
+   * Register a draggable plugin that will be called during the drag operation.
+   * The plugins are called in their registration order.
    *
    * @param plugin
    */
   public static void registerDraggablePlugin(DraggablePlugin plugin) {
     if (draggablePlugins == null) {
-      draggablePlugins = new HashMap<String, DraggablePlugin>();
+      draggablePlugins = new LinkedHashMap<String, DraggablePlugin>();
     }
     draggablePlugins.put(plugin.getName(), plugin);
   }
 
+  /**
+   * Unregister a draggable plugin registered with
+   * {@link #registerDraggablePlugin(DraggablePlugin)}. The drag operations in
+   * progress are not affected.
+   *
+   * @param name
+   *          the name of the plugin
+   */
+  public static void unregisterDraggablePlugin(String name) {
+    if (draggablePlugins != null) {
+      draggablePlugins.remove(name);
+    }
+  }
+
   private static void trigger(GwtEvent<?> e, DragFunction callback,
                               DragContext dragContext, HasHandlers handlerManager) {
     if (handlerManager != null && e != null) {
@@ -161,6 +213,20 @@ public class Draggable extends MousePlugin {
 
   private boolean dragStart = false;
 
+  // reused for each phase of the drag operation
+  private final PluginCaller pluginCaller = new PluginCaller();
+
+  // last mouse move event buffered when drag events are coalesced
+  private Element pendingDraggable;
+  private GqEvent pendingDragEvent;
+  private AnimationHandle pendingDragFrame;
+
+  private final AnimationCallback dragFrameCallback = new AnimationCallback() {
+    public void execute(double timestamp) {
+      pendingDragFrame = null;
+      flushPendingDrag();
+    }
+  };
 
   /**
    * Constructor
@@ -180,6 +246,8 @@ public class Draggable extends MousePlugin {
    */
   public Draggable destroy() {
 
+    cancelPendingDrag();
+
     for (Element e : elements()) {
       selectedDraggables.remove(e);
 
@@ -252,6 +320,18 @@ public class Draggable extends MousePlugin {
     return draggable(new DraggableOptions(), eventBus);
   }
 
+  /**
+   * Forget the geometry of the selected elements kept by the snap add-on
+   * across the drag operations. Use it when the elements are moved without a
+   * change of the DOM, a resize or a scroll.
+   *
+   * @return
+   */
+  public Draggable invalidateSnapTargets() {
+    SnapPlugin.invalidateSnapTargets(this);
+    return this;
+  }
+
   /**
    * Get the {@link DraggableOptions} for the first element.
    *
@@ -286,6 +366,33 @@ public class Draggable extends MousePlugin {
     return this;
   }
 
+  /**
+   * Select all the draggable elements of the current set having the same
+   * scope as the draggables already selected. Only one
+   * {@link DraggableSelectionChangedEvent} is fired, a
+   * {@link DraggableSelectedEvent} is also fired for the draggables having the
+   * selectionEventPerElement option.
+   *
+   * @return
+   */
+  public Draggable selectAll() {
+    selectDraggables(elements(), true, false);
+    return this;
+  }
+
+  /**
+   * Unselect all the selected draggable elements. Only one
+   * {@link DraggableSelectionChangedEvent} is fired, a
+   * {@link DraggableUnselectedEvent} is also fired for the draggables having
+   * the selectionEventPerElement option.
+   *
+   * @return
+   */
+  public Draggable unselectAll() {
+    unselectDraggables(selectedDraggables.toList(), false);
+    return this;
+  }
+
   @Override
   protected String getPluginName() {
     return "draggable";
@@ -310,7 +417,7 @@ public class Draggable extends MousePlugin {
         && selectedDraggables.size() > 1) {
       DraggableHandler dragHandler = DraggableHandler.getInstance(element);
       DraggableOptions options = dragHandler.getOptions();
-      unselectAll();
+      clearSelection();
       select(element, options.getSelectedClassName());
     }
 
@@ -327,7 +434,7 @@ public class Draggable extends MousePlugin {
 
     if (!options.isMultipleSelection()) {
       // ensure all previously selected element are unselected
-      unselectAll();
+      clearSelection();
 
     } else {
 
@@ -343,7 +450,7 @@ public class Draggable extends MousePlugin {
       } else if (!selectedDraggables.contains(draggable)) {
         // if no meta key pressed and if the draggable is not selected ,
         // deselect all and select the draggable.
-        unselectAll();
+        clearSelection();
         select(draggable, options.getSelectedClassName());
 
       }
@@ -355,23 +462,19 @@ public class Draggable extends MousePlugin {
   protected boolean mouseDrag(Element currentDraggable, GqEvent event) {
     dragStart = true;
 
-    boolean result = false;
-
-    DragContext ctx = new DragContext(currentDraggable, currentDraggable,
-        selectedDraggables);
-    result |= mouseDragImpl(ctx,
-        DraggableHandler.getInstance(currentDraggable), event, false);
-
-    for (Element draggable : selectedDraggables) {
-      if (draggable != currentDraggable) {
-        ctx = new DragContext(draggable, currentDraggable, selectedDraggables);
-        result |= mouseDragImpl(ctx, DraggableHandler.getInstance(draggable),
-            event, false);
+    DraggableOptions options = getOptions(currentDraggable);
+    if (options != null && options.isCoalesceDragEvents()) {
+      // keep only the last event, it will be processed at the next frame
+      pendingDraggable = currentDraggable;
+      pendingDragEvent = event;
+      if (pendingDragFrame == null) {
+        pendingDragFrame = AnimationScheduler.get().requestAnimationFrame(
+            dragFrameCallback);
       }
-
+      return false;
     }
 
-    return result;
+    return dragSelection(currentDraggable, event);
   }
 
   @Override
@@ -385,7 +488,7 @@ public class Draggable extends MousePlugin {
     // draggable or doesn't accept multi selection, unselect all
     if (!canBeSelected(currentDraggable, dragHandler)
         || !options.isMultipleSelection()) {
-      unselectAll();
+      clearSelection();
     }
 
     // if the currentDraggable is not yet selected and can be selected,
@@ -401,48 +504,96 @@ public class Draggable extends MousePlugin {
     SelectFunction selectFunction = options.getSelect();
     if (selectFunction != null) {
       GQuery followers = selectFunction.selectElements();
-      followers.each(new Function() {
-        @Override
-        public void f(Element e) {
-          DraggableHandler handler = DraggableHandler.getInstance(e);
-          if (handler != null) {
-            GWT.log("Select automatic selected element " + e.getId());
-            select(e, handler.getOptions().getSelectedClassName());
-          }
-        }
-      });
+      selectDraggables(followers.elements(), false, true);
     }
 
-    // first call mouseStart for the initial draggable
+    // first create the helper of the initial draggable. The contexts are kept
+    // by the handlers and reused until the end of the drag operation
+    List<DragContext> contexts = new ArrayList<DragContext>();
     DragContext ctx = new DragContext(currentDraggable, currentDraggable,
         selectedDraggables);
-    result |= mouseStartImpl(ctx, event);
+    if (createHelper(ctx, event)) {
+      contexts.add(ctx);
+    }
 
-    // call mouseStartImpl for the others
-    for (Element draggable : selectedDraggables) {
+    // create the helpers of the others
+    for (int i = 0; i < selectedDraggables.size(); i++) {
+      Element draggable = selectedDraggables.get(i);
       if (draggable != currentDraggable) {
         ctx = new DragContext(draggable, currentDraggable, selectedDraggables);
-        result |= mouseStartImpl(ctx, event);
+        if (createHelper(ctx, event)) {
+          contexts.add(ctx);
+        }
       }
     }
 
+    // read the DOM for all the draggables before modifying it. All the
+    // handlers are initialized before the plugins measure them so that a
+    // plugin can measure the whole selection at once
+    for (DragContext startedCtx : contexts) {
+      DraggableHandler handler = getHandler(startedCtx.getDraggable());
+      handler.cacheHelperSize();
+      handler.initialize(startedCtx.getDraggable(), event);
+    }
+    getHandler(currentDraggable).setDragState(DRAGGABLE_KEY, this);
+    for (DragContext startedCtx : contexts) {
+      measurePlugins(pluginCaller.init(DragPhase.START, startedCtx,
+          getHandler(startedCtx.getDraggable()), event));
+    }
+
+    for (DragContext startedCtx : contexts) {
+      result |= mouseStartImpl(startedCtx, event);
+    }
+
     return result;
   }
 
   @Override
   protected boolean mouseStop(Element initialDraggable, final GqEvent event) {
-    boolean result = false;
+    // process the buffered mouse move before dropping
+    flushPendingDrag();
 
-    DragContext ctx = new DragContext(initialDraggable, initialDraggable,
-        selectedDraggables);
-    result |= mouseStopImpl(ctx, event);
-
-    for (Element draggable : selectedDraggables) {
+    List<DragContext> contexts = new ArrayList<DragContext>();
+    contexts.add(getDragContext(initialDraggable, initialDraggable));
+    for (int i = 0; i < selectedDraggables.size(); i++) {
+      Element draggable = selectedDraggables.get(i);
       if (draggable != initialDraggable) {
-        ctx = new DragContext(draggable, initialDraggable, selectedDraggables);
-        result |= mouseStopImpl(ctx, event);
+        contexts.add(getDragContext(draggable, initialDraggable));
+      }
+    }
+
+    // the autoscroll would move the helpers during the revert animation
+    DraggablePlugin scrollPlugin = draggablePlugins.get("scroll");
+    if (scrollPlugin instanceof ScrollPlugin) {
+      for (DragContext ctx : contexts) {
+        DraggableHandler handler = getHandler(ctx.getDraggable());
+        if (handler != null) {
+          ((ScrollPlugin) scrollPlugin).stopScroll(handler);
+        }
+      }
+    }
+
+    // the helpers have to be at their final position for the drop and the
+    // revert
+    restoreCompositeHelper(initialDraggable);
+    for (DragContext ctx : contexts) {
+      getHandler(ctx.getDraggable()).commitHelperPosition();
+    }
+
+    List<DragContext> stoppedContexts = new ArrayList<DragContext>();
+    for (DragContext ctx : contexts) {
+      if (!revert(ctx, event)) {
+        stoppedContexts.add(ctx);
       }
+    }
 
+    // the reverted draggables are stopped at the end of their animation
+    for (DragContext ctx : stoppedContexts) {
+      measurePlugins(pluginCaller.init(DragPhase.STOP, ctx,
+          getHandler(ctx.getDraggable()), event));
+    }
+    for (DragContext ctx : stoppedContexts) {
+      mouseStopImpl(ctx, event);
     }
 
     DraggableOptions options = getOptions(initialDraggable);
@@ -452,20 +603,30 @@ public class Draggable extends MousePlugin {
     SelectFunction selectFunction = options.getSelect();
     if (selectFunction != null) {
       GQuery followers = selectFunction.selectElements();
+      List<Element> toUnselect = new ArrayList<Element>();
       for (Element e : followers.elements()) {
-        unselect(e);
+        if (selectedDraggables.contains(e)) {
+          toUnselect.add(e);
+        }
       }
+      unselectDraggables(toUnselect, true);
     }
 
-    return result;
+    return false;
   }
 
-  private void callPlugins(PluginCaller caller, DraggableOptions options) {
-    for (DraggablePlugin plugin : draggablePlugins.values()) {
-      if (plugin.hasToBeExecuted(options)) {
-        caller.call(plugin);
-      }
+  private void callPlugins(PluginCaller caller) {
+    measurePlugins(caller);
+    mutatePlugins(caller);
+  }
+
+  private void cancelPendingDrag() {
+    if (pendingDragFrame != null) {
+      pendingDragFrame.cancel();
+      pendingDragFrame = null;
     }
+    pendingDraggable = null;
+    pendingDragEvent = null;
   }
 
   private boolean canBeSelected(Element draggable, DraggableHandler handler) {
@@ -482,6 +643,263 @@ public class Draggable extends MousePlugin {
 
   }
 
+  /**
+   * Fire the {@link BeforeDragStartEvent} and create the helper of the
+   * draggable.
+   *
+   * @return false if the drag was stopped for this draggable
+   */
+  private boolean createHelper(DragContext ctx, GqEvent event) {
+    Element draggable = ctx.getDraggable();
+    DraggableHandler dragHandler = DraggableHandler.getInstance(draggable);
+    DraggableOptions options = dragHandler.getOptions();
+
+    try {
+      trigger(new BeforeDragStartEvent(ctx), options.getOnBeforeDragStart(),
+          ctx);
+    } catch (UmbrellaException e) {
+      for (Throwable t : e.getCauses()) {
+        if (t instanceof StopDragException) {
+          return false;
+        }
+      }
+
+    }
+
+    dragHandler.createHelper(draggable, event);
+    dragHandler.setDragContext(ctx);
+    dragHandler.setPluginPipeline(PluginPipeline.compile(
+        draggablePlugins.values(), options));
+
+    return true;
+  }
+
+  /**
+   * Run the drag operation for all selected draggables. The DOM is read for
+   * all the draggables before being modified.
+   */
+  private boolean dragSelection(Element currentDraggable, GqEvent event) {
+    DraggableHandler currentHandler = DraggableHandler.getInstance(
+        currentDraggable);
+    MultiDragMode mode = currentHandler != null ? currentHandler.getOptions()
+        .getMultiDragMode() : null;
+    boolean composite = mode == MultiDragMode.COMPOSITE;
+    boolean delta = composite || mode == MultiDragMode.DELTA;
+
+    measureDrag(currentDraggable, event);
+    // don't use an iterator, this method is called for each mouse move
+    if (!delta) {
+      for (int i = 0; i < selectedDraggables.size(); i++) {
+        Element draggable = selectedDraggables.get(i);
+        if (draggable != currentDraggable) {
+          measureDrag(draggable, event);
+        }
+      }
+    }
+
+    boolean result = mutateDrag(currentDraggable, event);
+
+    if (composite) {
+      return result | moveCompositeHelper(currentDraggable, currentHandler);
+    }
+    if (delta) {
+      return result | followSelection(currentDraggable, currentHandler, event);
+    }
+
+    for (int i = 0; i < selectedDraggables.size(); i++) {
+      Element draggable = selectedDraggables.get(i);
+      if (draggable != currentDraggable) {
+        result |= mutateDrag(draggable, event);
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Move the other selected draggables by the distance the initial draggable
+   * moved since the start of the drag.
+   */
+  private boolean followSelection(Element currentDraggable,
+                                  DraggableHandler currentHandler,
+                                  GqEvent event) {
+    // the drag was stopped during the drag of the initial draggable
+    if (currentHandler.getDragContext() == null) {
+      return false;
+    }
+
+    Offset position = currentHandler.getPosition();
+    Offset originalPosition = currentHandler.getOriginalPosition();
+    int deltaLeft = position.left - originalPosition.left;
+    int deltaTop = position.top - originalPosition.top;
+    boolean contain = currentHandler.getOptions().isContainFollowers();
+
+    boolean result = false;
+
+    for (int i = 0; i < selectedDraggables.size(); i++) {
+      Element draggable = selectedDraggables.get(i);
+      if (draggable == currentDraggable) {
+        continue;
+      }
+      DraggableHandler dragHandler = DraggableHandler.getInstance(draggable);
+      if (dragHandler == null || dragHandler.getDragContext() == null) {
+        continue;
+      }
+      dragHandler.regeneratePositions(deltaLeft, deltaTop, contain);
+      result |= updateDrag(dragHandler.getDragContext(), dragHandler, event,
+          false);
+    }
+
+    return result;
+  }
+
+  /**
+   * Move the composite helper of the followers by the distance the initial
+   * draggable moved since the start of the drag. The composite helper is
+   * created at the first move.
+   */
+  private boolean moveCompositeHelper(Element currentDraggable,
+                                      DraggableHandler currentHandler) {
+    // the drag was stopped during the drag of the initial draggable
+    if (currentHandler.getDragContext() == null) {
+      return false;
+    }
+
+    CompositeHelper compositeHelper = currentHandler
+        .getDragState(COMPOSITE_HELPER_KEY);
+    if (compositeHelper == null) {
+      compositeHelper = CompositeHelper.create(currentDraggable,
+          selectedDraggables);
+      currentHandler.setDragState(COMPOSITE_HELPER_KEY, compositeHelper);
+    }
+
+    Offset position = currentHandler.getPosition();
+    Offset originalPosition = currentHandler.getOriginalPosition();
+    compositeHelper.move(position.left - originalPosition.left, position.top
+        - originalPosition.top);
+
+    return false;
+  }
+
+  /**
+   * Move the followers of a composite multi-drag to their final position and
+   * remove the composite helper.
+   */
+  private void restoreCompositeHelper(Element initialDraggable) {
+    DraggableHandler initialHandler = getHandler(initialDraggable);
+    if (initialHandler == null || initialHandler.getDragContext() == null) {
+      return;
+    }
+    CompositeHelper compositeHelper = initialHandler
+        .removeDragState(COMPOSITE_HELPER_KEY);
+    if (compositeHelper == null) {
+      return;
+    }
+
+    Offset position = initialHandler.getPosition();
+    Offset originalPosition = initialHandler.getOriginalPosition();
+    int deltaLeft = position.left - originalPosition.left;
+    int deltaTop = position.top - originalPosition.top;
+    boolean contain = initialHandler.getOptions().isContainFollowers();
+
+    for (int i = 0; i < selectedDraggables.size(); i++) {
+      Element draggable = selectedDraggables.get(i);
+      if (draggable == initialDraggable) {
+        continue;
+      }
+      DraggableHandler dragHandler = DraggableHandler.getInstance(draggable);
+      if (dragHandler == null || dragHandler.getDragContext() == null) {
+        continue;
+      }
+      dragHandler.regeneratePositions(deltaLeft, deltaTop, contain);
+      dragHandler.moveHelper(false);
+    }
+
+    // the helpers are shown once at their final position
+    compositeHelper.restore();
+  }
+
+  /**
+   * Process the mouse move event buffered while coalescing drag events, if
+   * any.
+   */
+  private void flushPendingDrag() {
+    Element draggable = pendingDraggable;
+    GqEvent event = pendingDragEvent;
+    cancelPendingDrag();
+
+    if (draggable != null && event != null) {
+      dragSelection(draggable, event);
+    }
+  }
+
+  /**
+   * Return the context used during the drag operation or create a new one if
+   * the drag was not started for this draggable.
+   */
+  private DragContext getDragContext(Element draggable,
+                                     Element initialDraggable) {
+    DraggableHandler handler = getHandler(draggable);
+    if (handler != null && handler.getDragContext() != null) {
+      return handler.getDragContext();
+    }
+    return new DragContext(draggable, initialDraggable, selectedDraggables);
+  }
+
+  /**
+   * Compute the new position of the draggable and call the measure step of
+   * the plugins.
+   */
+  private void measureDrag(Element draggable, GqEvent event) {
+    DraggableHandler dragHandler = DraggableHandler.getInstance(draggable);
+    // the drag operation was not started for this draggable
+    if (dragHandler == null || dragHandler.getDragContext() == null) {
+      return;
+    }
+    dragHandler.regeneratePositions(event);
+    measurePlugins(pluginCaller.init(DragPhase.DRAG,
+        dragHandler.getDragContext(), dragHandler, event));
+  }
+
+  private void measurePlugins(PluginCaller caller) {
+    BatchedDraggablePlugin[] plugins = getPluginPipeline(caller.dragHandler)
+        .getMeasurePlugins(caller.phase);
+    for (int i = 0; i < plugins.length; i++) {
+      caller.measure(plugins[i]);
+    }
+  }
+
+  /**
+   * Call the mutate step of the plugins and move the helper of the draggable.
+   */
+  private boolean mutateDrag(Element draggable, GqEvent event) {
+    DraggableHandler dragHandler = DraggableHandler.getInstance(draggable);
+    // the drag operation was not started or was stopped
+    if (dragHandler == null || dragHandler.getDragContext() == null) {
+      return false;
+    }
+    DragContext ctx = dragHandler.getDragContext();
+    mutatePlugins(pluginCaller.init(DragPhase.DRAG, ctx, dragHandler, event));
+    return updateDrag(ctx, dragHandler, event, false);
+  }
+
+  private void mutatePlugins(PluginCaller caller) {
+    DraggablePlugin[] plugins = getPluginPipeline(caller.dragHandler)
+        .getPlugins(caller.phase);
+    for (int i = 0; i < plugins.length; i++) {
+      caller.mutate(plugins[i]);
+    }
+  }
+
+  private PluginPipeline getPluginPipeline(DraggableHandler handler) {
+    // the pipeline is null if the drag operation was not started
+    if (handler.getPluginPipeline() == null) {
+      handler.setPluginPipeline(PluginPipeline.compile(
+          draggablePlugins.values(), handler.getOptions()));
+    }
+    return handler.getPluginPipeline();
+  }
+
   private DragAndDropManager getDragAndDropManager() {
     return DragAndDropManager.getInstance();
   }
@@ -521,17 +939,28 @@ public class Draggable extends MousePlugin {
    */
   private boolean mouseDragImpl(DragContext ctx, DraggableHandler dragHandler,
                                 GqEvent event, boolean noPropagation) {
-    Element draggable = ctx.getDraggable();
-
     dragHandler.regeneratePositions(event);
 
     if (!noPropagation) {
+      callPlugins(pluginCaller.init(DragPhase.DRAG, ctx, dragHandler, event));
+    }
+
+    return updateDrag(ctx, dragHandler, event, noPropagation);
+  }
 
-      callPlugins(new DragCaller(ctx, dragHandler, event),
-          dragHandler.getOptions());
+  /**
+   * Fire the drag event and move the helper to the position computed by the
+   * handler.
+   */
+  private boolean updateDrag(DragContext ctx, DraggableHandler dragHandler,
+                             GqEvent event, boolean noPropagation) {
+    Element draggable = ctx.getDraggable();
 
+    if (!noPropagation) {
       try {
-        trigger(new DragEvent(ctx), dragHandler.getOptions().getOnDrag(), ctx);
+        // the DragEvent is reused during the whole drag operation
+        trigger(eventBus != null ? dragHandler.getDragEvent() : null,
+            dragHandler.getOptions().getOnDrag(), ctx);
       } catch (UmbrellaException e) {
         for (Throwable t : e.getCauses()) {
           if (t instanceof StopDragException) {
@@ -558,23 +987,12 @@ public class Draggable extends MousePlugin {
     final DraggableHandler dragHandler = DraggableHandler.getInstance(draggable);
     DraggableOptions options = dragHandler.getOptions();
 
-    try {
-      trigger(new BeforeDragStartEvent(ctx), options.getOnBeforeDragStart(),
-          ctx);
-    } catch (UmbrellaException e) {
-      for (Throwable t : e.getCauses()) {
-        if (t instanceof StopDragException) {
-          return false;
-        }
-      }
-
+    // the drag operation was stopped during the start of another draggable
+    if (dragHandler.getDragContext() == null) {
+      return false;
     }
 
-    dragHandler.createHelper(draggable, event);
-    dragHandler.cacheHelperSize();
-
-    dragHandler.initialize(draggable, event);
-    callPlugins(new StartCaller(ctx, dragHandler, event), options);
+    mutatePlugins(pluginCaller.init(DragPhase.START, ctx, dragHandler, event));
 
     try {
       trigger(new DragStartEvent(ctx), options.getOnDragStart(), ctx);
@@ -609,36 +1027,43 @@ public class Draggable extends MousePlugin {
   }
 
   private boolean mouseStopImpl(final DragContext ctx, final GqEvent event) {
-    final Element draggable = ctx.getDraggable();
-    final DraggableHandler handler = getHandler(draggable);
-    final DraggableOptions options = handler.getOptions();
+    Element draggable = ctx.getDraggable();
+    DraggableHandler handler = getHandler(draggable);
 
-    boolean dropped = isDropped(ctx, event);
+    mutatePlugins(pluginCaller.init(DragPhase.STOP, ctx, handler, event));
+    triggerDragStop(ctx, handler.getOptions());
 
-    if (draggable == null) {
-      return false;
-    }
+    handler.clear(draggable);
+
+    return false;
+  }
 
-    RevertOption revertOption = options.getRevert();
-    if (revertOption.doRevert(dropped)) {
-      handler.revertToOriginalPosition(new Function() {
-        @Override
-        public void f(Element e) {
-          callPlugins(new StopCaller(ctx, handler, event), options);
-          triggerDragStop(ctx, options);
+  /**
+   * Check if the draggable was dropped and revert it if needed. The reverted
+   * draggable is stopped at the end of the animation.
+   *
+   * @return true if the draggable is reverted
+   */
+  private boolean revert(final DragContext ctx, final GqEvent event) {
+    final DraggableHandler handler = getHandler(ctx.getDraggable());
 
-          handler.clear(draggable);
-        }
-      });
+    boolean dropped = isDropped(ctx, event);
+
+    RevertOption revertOption = handler.getOptions().getRevert();
+    if (!revertOption.doRevert(dropped)) {
       return false;
     }
 
-    callPlugins(new StopCaller(ctx, handler, event), options);
-    triggerDragStop(ctx, options);
-
-    handler.clear(draggable);
+    handler.revertToOriginalPosition(new Function() {
+      @Override
+      public void f(Element e) {
+        callPlugins(pluginCaller.init(DragPhase.STOP, ctx, handler, event));
+        triggerDragStop(ctx, handler.getOptions());
 
-    return false;
+        handler.clear(ctx.getDraggable());
+      }
+    });
+    return true;
   }
 
   private boolean isDropped(DragContext ctx, GqEvent event) {
@@ -651,10 +1076,12 @@ public class Draggable extends MousePlugin {
         dropped = getDragAndDropManager().drop(ctx, event);
       }
 
-      $(ctx.getInitialDraggable()).data("_is_dropped", dropped);
+      DraggableHandler.getInstance(ctx.getInitialDraggable()).setDragState(
+          IS_DROPPED_KEY, dropped);
 
     } else {
-      dropped = $(ctx.getInitialDraggable()).data("_is_dropped", Boolean.class);
+      dropped = Boolean.TRUE.equals(DraggableHandler.getInstance(
+          ctx.getInitialDraggable()).getDragState(IS_DROPPED_KEY));
 
     }
     return dropped;
@@ -692,6 +1119,86 @@ public class Draggable extends MousePlugin {
         draggable);
   }
 
+  /**
+   * Unselect all the selected draggables, firing the per-element events.
+   */
+  private void clearSelection() {
+    unselectDraggables(selectedDraggables.toList(), true);
+  }
+
+  /**
+   * Select the draggables and fire only one
+   * {@link DraggableSelectionChangedEvent}.
+   *
+   * @param checkScope      if true, the draggables not having the same scope
+   *                        as the selected draggables are ignored
+   * @param eventPerElement if true, a {@link DraggableSelectedEvent} is fired
+   *                        for each draggable whatever its
+   *                        selectionEventPerElement option
+   */
+  private void selectDraggables(Element[] draggables, boolean checkScope,
+                                boolean eventPerElement) {
+    List<Element> selected = new ArrayList<Element>();
+
+    for (Element draggable : draggables) {
+      DraggableHandler handler = getHandler(draggable);
+      if (handler == null || selectedDraggables.contains(draggable)
+          || (checkScope && !canBeSelected(draggable, handler))) {
+        continue;
+      }
+      DraggableOptions options = handler.getOptions();
+
+      selectedDraggables.add(draggable);
+      selected.add(draggable);
+
+      if (options.getSelectedClassName() != null) {
+        draggable.addClassName(options.getSelectedClassName());
+      }
+      if (eventPerElement || options.isSelectionEventPerElement()) {
+        trigger(new DraggableSelectedEvent(draggable), options.getOnSelected(),
+            draggable);
+      }
+    }
+
+    triggerSelectionChanged(selected, Collections.<Element>emptyList());
+  }
+
+  /**
+   * Unselect the draggables and fire only one
+   * {@link DraggableSelectionChangedEvent}.
+   *
+   * @param eventPerElement if true, a {@link DraggableUnselectedEvent} is fired
+   *                        for each draggable whatever its
+   *                        selectionEventPerElement option
+   */
+  private void unselectDraggables(List<Element> draggables,
+                                  boolean eventPerElement) {
+    List<Element> unselected = new ArrayList<Element>();
+
+    for (Element draggable : draggables) {
+      if (!selectedDraggables.remove(draggable)) {
+        continue;
+      }
+      unselected.add(draggable);
+
+      DraggableHandler handler = getHandler(draggable);
+      if (handler == null) {
+        continue;
+      }
+      DraggableOptions options = handler.getOptions();
+
+      if (options.getSelectedClassName() != null) {
+        draggable.removeClassName(options.getSelectedClassName());
+      }
+      if (eventPerElement || options.isSelectionEventPerElement()) {
+        trigger(new DraggableUnselectedEvent(draggable),
+            options.getOnUnselected(), draggable);
+      }
+    }
+
+    triggerSelectionChanged(Collections.<Element>emptyList(), unselected);
+  }
+
   private void trigger(GwtEvent<?> e, DragFunction callback,
                        DragContext dragContext) {
     trigger(e, callback, dragContext, eventBus);
@@ -715,12 +1222,12 @@ public class Draggable extends MousePlugin {
     });
   }
 
-  private void unselectAll() {
-    // TODO concurent modification list !
-    while (selectedDraggables.size() != 0) {
-      unselect(selectedDraggables.get(0));
+  private void triggerSelectionChanged(List<Element> selected,
+                                       List<Element> unselected) {
+    if (eventBus != null && (!selected.isEmpty() || !unselected.isEmpty())) {
+      eventBus.fireEvent(new DraggableSelectionChangedEvent(selected,
+          unselected));
     }
-
   }
 
 }
@@ -30,9 +30,13 @@ import com.google.gwt.query.client.plugins.effects.PropertiesAnimation.Easing;
 import com.google.gwt.query.client.plugins.events.GqEvent;
 import com.google.gwt.user.client.Window;
 import gwtquery.plugins.draggable.client.Draggable.CssClassNames;
+import gwtquery.plugins.draggable.client.DragFrame.PositionType;
 import gwtquery.plugins.draggable.client.DraggableOptions.AxisOption;
 import gwtquery.plugins.draggable.client.DraggableOptions.CursorAt;
 import gwtquery.plugins.draggable.client.DraggableOptions.HelperType;
+import gwtquery.plugins.draggable.client.events.DragContext;
+import gwtquery.plugins.draggable.client.events.DragEvent;
+import gwtquery.plugins.draggable.client.geom.DragMath;
 import gwtquery.plugins.draggable.client.impl.DraggableHandlerImpl;
 
 import static com.google.gwt.query.client.GQuery.$;
@@ -59,6 +63,9 @@ public class DraggableHandler {
   private int originalEventPageY;
   private Offset position;
   private Offset originalPosition;
+  private Offset originalOffset;
+  // added to the original position when following the initial draggable
+  private Offset followOffset;
 
   // info from helper
   private String helperCssPosition;
@@ -70,6 +77,24 @@ public class DraggableHandler {
   private Dimension helperDimension;
   private boolean cancelHelperRemoval = false;
 
+  // left and top of the helper when it started to be moved with a transform
+  private Offset transformOrigin;
+  private int translateLeft;
+  private int translateTop;
+
+  // values resolved at the start of the drag operation
+  private DragFrame dragFrame;
+  // scroll offsets read at the last position update
+  private int scrollLeft;
+  private int scrollTop;
+
+  // objects reused during the whole drag operation
+  private DragContext dragContext;
+  private DragEvent dragEvent;
+  private PluginPipeline pluginPipeline;
+  // states of the plugins for the current drag operation
+  private Object[] dragStates;
+
   // can be instantiate only by Draggable plugin
   DraggableHandler(DraggableOptions options) {
     this.options = options;
@@ -84,27 +109,41 @@ public class DraggableHandler {
    * @return
    */
   public Offset convertPositionTo(boolean absolute, Offset aPosition) {
-    int mod = absolute ? 1 : -1;
-    GQuery scroll = getScrollParent();
-    boolean scrollIsRootNode = isRootNode(scroll.get(0));
-
-    int top = aPosition.top
-        + relativeOffset.top
-        * mod
-        + parentOffset.top
-        * mod
-        - ("fixed".equals(helperCssPosition) ? -helperScrollParent.scrollTop()
-        : scrollIsRootNode ? 0 : scroll.scrollTop()) * mod;
+    return convertPositionTo(absolute, aPosition, new Offset(0, 0));
+  }
 
-    int left = aPosition.left
-        + relativeOffset.left
-        * mod
-        + parentOffset.left
-        * mod
-        - ("fixed".equals(helperCssPosition) ? -helperScrollParent.scrollLeft()
-        : scrollIsRootNode ? 0 : scroll.scrollLeft()) * mod;
+  /**
+   * convert a relative position to a absolute position and vice versa. The
+   * result is written in <code>result</code> in order to avoid any allocation
+   * during the drag. The scroll offsets read at the last update of the
+   * position are used.
+   *
+   * @param absolute  if true the position is convert to an absolute position, if
+   *                  false it is convert in a relative position
+   * @param aPosition position to convert
+   * @param result    the offset receiving the converted position. It can be
+   *                  <code>aPosition</code>
+   * @return <code>result</code>
+   */
+  public Offset convertPositionTo(boolean absolute, Offset aPosition,
+                                  Offset result) {
+    int left;
+    int top;
+    if (absolute) {
+      left = DragMath.toAbsolute(aPosition.left, dragFrame.getOffsetLeft(),
+          scrollLeft);
+      top = DragMath.toAbsolute(aPosition.top, dragFrame.getOffsetTop(),
+          scrollTop);
+    } else {
+      left = DragMath.toRelative(aPosition.left, dragFrame.getOffsetLeft(),
+          scrollLeft);
+      top = DragMath.toRelative(aPosition.top, dragFrame.getOffsetTop(),
+          scrollTop);
+    }
 
-    return new Offset(left, top);
+    result.left = left;
+    result.top = top;
+    return result;
 
   }
 
@@ -112,6 +151,34 @@ public class DraggableHandler {
     return containment;
   }
 
+  /**
+   * @return the {@link DragFrame} resolved at the start of the last drag
+   *         operation
+   */
+  public DragFrame getDragFrame() {
+    return dragFrame;
+  }
+
+  /**
+   * Return the state stored with the given key during the current drag
+   * operation, null if none.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T getDragState(DragStateKey<T> key) {
+    int index = key.getIndex();
+    if (dragStates == null || index >= dragStates.length) {
+      return null;
+    }
+    return (T) dragStates[index];
+  }
+
+  /**
+   * @return the {@link DragContext} used during the current drag operation
+   */
+  public DragContext getDragContext() {
+    return dragContext;
+  }
+
   public GQuery getHelper() {
     return helper;
   }
@@ -132,6 +199,14 @@ public class DraggableHandler {
     return helperScrollParent;
   }
 
+  /**
+   * @return the distance added to the original position of this draggable
+   *         when it follows the initial draggable of a multi-drag
+   */
+  public Offset getFollowOffset() {
+    return followOffset;
+  }
+
   public Offset getMargin() {
     return margin;
   }
@@ -156,6 +231,10 @@ public class DraggableHandler {
     return originalEventPageY;
   }
 
+  public Offset getOriginalOffset() {
+    return originalOffset;
+  }
+
   public Offset getOriginalPosition() {
     return originalPosition;
   }
@@ -177,6 +256,9 @@ public class DraggableHandler {
   }
 
   public void initialize(Element element, GqEvent e) {
+    if (dragStates == null) {
+      dragStates = new Object[DragStateKey.getCount()];
+    }
 
     helperCssPosition = helper.css("position");
     helperScrollParent = helper.as(UiPlugin.GQueryUi).scrollParent();
@@ -194,6 +276,9 @@ public class DraggableHandler {
     offset = new Offset(absPosition.left - margin.left, absPosition.top
         - margin.top);
 
+    originalOffset = new Offset(offset.left, offset.top);
+    followOffset = new Offset(0, 0);
+
     offsetClick = new Offset(e.pageX() - offset.left, e.pageY() - offset.top);
 
     parentOffset = calculateParentOffset(element);
@@ -202,13 +287,16 @@ public class DraggableHandler {
     originalEventPageX = e.pageX();
     originalEventPageY = e.pageY();
 
+    calculateContainment();
+    dragFrame = createDragFrame();
+    readScroll();
+
     position = calculateOriginalPosition(element, e);
     originalPosition = new Offset(position.left, position.top);
 
     if (options.getCursorAt() != null) {
       adjustOffsetFromHelper(options.getCursorAt());
     }
-    calculateContainment();
 
   }
 
@@ -216,7 +304,7 @@ public class DraggableHandler {
     if (HelperType.ORIGINAL == options.getHelperType()) {
       return impl.getCssPosition(element);
     } else {
-      return generatePosition(e, true);
+      return generatePosition(e.pageX(), e.pageY(), true, new Offset(0, 0));
     }
   }
 
@@ -224,6 +312,18 @@ public class DraggableHandler {
     return "html".equalsIgnoreCase(e.getTagName()) || e == body;
   }
 
+  /**
+   * Notify the handler that the offset parent of the helper moved on the page
+   * by the given distance, for instance because one of its ancestors
+   * scrolled. The next positions are computed without measuring the offset
+   * parent again.
+   */
+  public void moveOffsetParent(int deltaLeft, int deltaTop) {
+    parentOffset.left += deltaLeft;
+    parentOffset.top += deltaTop;
+    dragFrame = createDragFrame();
+  }
+
   /**
    * @param firstTime if true, the helper has to be positionned without take
    *                  care to the axis options
@@ -233,18 +333,93 @@ public class DraggableHandler {
       return;
     }
     AxisOption axis = options.getAxis();
-    if (AxisOption.NONE == axis || AxisOption.X_AXIS == axis || firstTime) {
+    boolean moveLeft = AxisOption.NONE == axis || AxisOption.X_AXIS == axis
+        || firstTime;
+    boolean moveTop = AxisOption.NONE == axis || AxisOption.Y_AXIS == axis
+        || firstTime;
+
+    if (!firstTime && transformOrigin != null) {
+      // left and top will be written at the end of the drag
+      if (moveLeft) {
+        translateLeft = position.left - transformOrigin.left;
+      }
+      if (moveTop) {
+        translateTop = position.top - transformOrigin.top;
+      }
+      impl.setTranslate(helper.get(0), translateLeft, translateTop);
+      return;
+    }
+
+    if (moveLeft) {
       helper.get(0).getStyle().setLeft(position.left, Unit.PX);
     }
-    if (AxisOption.NONE == axis || AxisOption.Y_AXIS == axis || firstTime) {
+    if (moveTop) {
       helper.get(0).getStyle().setTop(position.top, Unit.PX);
     }
+
+    if (firstTime && transformOrigin == null && options.isTransformHelper()
+        && impl.supportsTransform()) {
+      transformOrigin = new Offset(position.left, position.top);
+      translateLeft = 0;
+      translateTop = 0;
+    }
+  }
+
+  /**
+   * If the helper is moved with a css transform, remove the transform and
+   * write the current position in the <code>left</code> and <code>top</code>
+   * properties of the helper.
+   */
+  public void commitHelperPosition() {
+    if (transformOrigin == null) {
+      return;
+    }
+    if (helper != null && helper.size() > 0) {
+      Element helperElement = helper.get(0);
+      impl.clearTranslate(helperElement);
+      helperElement.getStyle().setLeft(transformOrigin.left + translateLeft,
+          Unit.PX);
+      helperElement.getStyle().setTop(transformOrigin.top + translateTop,
+          Unit.PX);
+    }
+    transformOrigin = null;
   }
 
   public void regeneratePositions(GqEvent e) {
-    position = generatePosition(e, false);
-    offset = convertPositionTo(true, position);
-    absPosition = offset.add(margin.left, margin.top);
+    // the offsets allocated in initialize are updated in place
+    readScroll();
+    generatePosition(e.pageX(), e.pageY(), false, position);
+    convertPositionTo(true, position, offset);
+    absPosition.left = offset.left + margin.left;
+    absPosition.top = offset.top + margin.top;
+  }
+
+  /**
+   * Move the draggable by the given distance from its original position
+   * shifted by the follow offset, without reading the DOM. Used to follow the
+   * initial draggable of a multi-drag.
+   *
+   * @param deltaLeft
+   * @param deltaTop
+   * @param contain   if true, the position is constrained in the containment
+   *                  of this draggable
+   */
+  public void regeneratePositions(int deltaLeft, int deltaTop, boolean contain) {
+    deltaLeft += followOffset.left;
+    deltaTop += followOffset.top;
+    if (contain && containment != null && containment.length == 4) {
+      deltaLeft = DragMath.clamp(originalOffset.left + deltaLeft,
+          containment[0], containment[2]) - originalOffset.left;
+      deltaTop = DragMath.clamp(originalOffset.top + deltaTop, containment[1],
+          containment[3]) - originalOffset.top;
+    }
+
+    setPosition(originalPosition.left + deltaLeft, originalPosition.top
+        + deltaTop);
+    offset.left = originalOffset.left + deltaLeft;
+    offset.top = originalOffset.top + deltaTop;
+    absPosition.left = offset.left + margin.left;
+    absPosition.top = offset.top + margin.top;
   }
 
   public void revertToOriginalPosition(Function function) {
@@ -256,6 +431,36 @@ public class DraggableHandler {
 
   }
 
+  /**
+   * Remove the state stored with the given key.
+   *
+   * @return the removed state, null if none
+   */
+  public <T> T removeDragState(DragStateKey<T> key) {
+    T state = getDragState(key);
+    if (state != null) {
+      dragStates[key.getIndex()] = null;
+    }
+    return state;
+  }
+
+  /**
+   * Store a state for the duration of the current drag operation. The state is
+   * released when the drag stops.
+   */
+  public <T> void setDragState(DragStateKey<T> key, T state) {
+    int index = key.getIndex();
+    if (dragStates == null || index >= dragStates.length) {
+      // key created after the start of the drag
+      Object[] states = new Object[DragStateKey.getCount()];
+      if (dragStates != null) {
+        System.arraycopy(dragStates, 0, states, 0, dragStates.length);
+      }
+      dragStates = states;
+    }
+    dragStates[index] = state;
+  }
+
   public void setHelperDimension(Dimension helperDimension) {
     this.helperDimension = helperDimension;
   }
@@ -274,8 +479,27 @@ public class DraggableHandler {
   }
 
   public void setPosition(Offset Offset) {
-    position = Offset;
+    setPosition(Offset.left, Offset.top);
+  }
+
+  public void setPosition(int left, int top) {
+    // keep the same instance, it is reused during the whole drag
+    if (position == null) {
+      position = new Offset(left, top);
+    } else {
+      position.left = left;
+      position.top = top;
+    }
+  }
 
+  /**
+   * Set the distance added to the original position of this draggable when it
+   * follows the initial draggable of a multi-drag, for instance to keep the
+   * helpers grouped. Reset when the drag starts.
+   */
+  public void setFollowOffset(int left, int top) {
+    followOffset.left = left;
+    followOffset.top = top;
   }
 
   public void setOffsetClick(Offset offsetClick) {
@@ -293,13 +517,38 @@ public class DraggableHandler {
     if (helper == null) {
       return;
     }
+    commitHelperPosition();
     helper.removeClass(CssClassNames.GWT_DRAGGABLE_DRAGGING);
     if (HelperType.ORIGINAL != options.getHelperType() && !cancelHelperRemoval) {
       impl.removeHelper(helper, options.getHelperType());
     }
     helper = null;
     cancelHelperRemoval = false;
+    dragContext = null;
+    dragEvent = null;
+    pluginPipeline = null;
+    dragStates = null;
+
+  }
+
+  DragEvent getDragEvent() {
+    if (dragEvent == null && dragContext != null) {
+      dragEvent = new DragEvent(dragContext);
+    }
+    return dragEvent;
+  }
 
+  PluginPipeline getPluginPipeline() {
+    return pluginPipeline;
+  }
+
+  void setPluginPipeline(PluginPipeline pluginPipeline) {
+    this.pluginPipeline = pluginPipeline;
+  }
+
+  void setDragContext(DragContext dragContext) {
+    this.dragContext = dragContext;
+    this.dragEvent = null;
   }
 
   void createHelper(Element draggable, GqEvent e) {
@@ -419,72 +668,56 @@ public class DraggableHandler {
     return new Offset(0, 0);
   }
 
-  private Offset generatePosition(GqEvent e, boolean initPosition) {
+  private DragFrame createDragFrame() {
+    PositionType positionType = PositionType.fromCss(helperCssPosition);
+
+    Element scrollElement;
+    if (positionType == PositionType.FIXED) {
+      scrollElement = helperScrollParent.get(0);
+    } else {
+      Element scroll = getScrollParent().get(0);
+      scrollElement = isRootNode(scroll) ? null : scroll;
+    }
 
-    GQuery scroll = getScrollParent();
-    boolean scrollIsRootNode = isRootNode(scroll.get(0));
+    return new DragFrame(positionType, helperOffsetParent.get(0),
+        scrollElement, relativeOffset.left + parentOffset.left,
+        relativeOffset.top + parentOffset.top, containment, options.getGrid());
+  }
 
-    int pageX = e.pageX();
-    int pageY = e.pageY();
+  private Offset generatePosition(int pageX, int pageY, boolean initPosition,
+                                  Offset result) {
+    DragFrame frame = dragFrame;
 
     if (!initPosition) {
-      if (containment != null && containment.length == 4) {
-        if (e.pageX() - offsetClick.left < containment[0]) {
-          pageX = containment[0] + offsetClick.left;
-        }
-        if (e.pageY() - offsetClick.top < containment[1]) {
-          pageY = containment[1] + offsetClick.top;
-        }
-        if (e.pageX() - offsetClick.left > containment[2]) {
-          pageX = containment[2] + offsetClick.left;
-        }
-        if (e.pageY() - offsetClick.top > containment[3]) {
-          pageY = containment[3] + offsetClick.top;
-        }
+      if (frame.isContained()) {
+        pageX = DragMath.contain(pageX, offsetClick.left,
+            frame.getContainmentLeft(), frame.getContainmentRight());
+        pageY = DragMath.contain(pageY, offsetClick.top,
+            frame.getContainmentTop(), frame.getContainmentBottom());
       }
 
-      if (options.getGrid() != null) {
-        int[] grid = options.getGrid();
-        int roundedTop = originalEventPageY
-            + Math.round((pageY - originalEventPageY) / grid[1]) * grid[1];
-        int roundedLeft = originalEventPageX
-            + Math.round((pageX - originalEventPageX) / grid[0]) * grid[0];
-
-        if (containment != null && containment.length == 4) {
-          boolean isOutOfContainment0 = roundedLeft - offsetClick.left < containment[0];
-          boolean isOutOfContainment1 = roundedTop - offsetClick.top < containment[1];
-          boolean isOutOfContainment2 = roundedLeft - offsetClick.left > containment[2];
-          boolean isOutOfContainment3 = roundedTop - offsetClick.top > containment[3];
-
-          pageY = !(isOutOfContainment1 || isOutOfContainment3) ? roundedTop
-              : (!isOutOfContainment1) ? roundedTop - grid[1] : roundedTop
-              + grid[1];
-          pageX = !(isOutOfContainment0 || isOutOfContainment2) ? roundedLeft
-              : (!isOutOfContainment0) ? roundedLeft - grid[0] : roundedLeft
-              + grid[0];
-
+      if (frame.hasGrid()) {
+        if (frame.isContained()) {
+          pageX = DragMath.snapToGrid(pageX, originalEventPageX,
+              frame.getGridX(), offsetClick.left, frame.getContainmentLeft(),
+              frame.getContainmentRight());
+          pageY = DragMath.snapToGrid(pageY, originalEventPageY,
+              frame.getGridY(), offsetClick.top, frame.getContainmentTop(),
+              frame.getContainmentBottom());
         } else {
-          pageY = roundedTop;
-          pageX = roundedLeft;
+          pageX = DragMath.snapToGrid(pageX, originalEventPageX,
+              frame.getGridX());
+          pageY = DragMath.snapToGrid(pageY, originalEventPageY,
+              frame.getGridY());
         }
-
       }
     }
 
-    int top = pageY
-        - offsetClick.top
-        - relativeOffset.top
-        - parentOffset.top
-        + ("fixed".equals(helperCssPosition) ? -helperScrollParent.scrollTop()
-        : scrollIsRootNode ? 0 : scroll.scrollTop());
-
-    int left = pageX
-        - offsetClick.left
-        - relativeOffset.left
-        - parentOffset.left
-        + ("fixed".equals(helperCssPosition) ? -helperScrollParent.scrollLeft()
-        : scrollIsRootNode ? 0 : scroll.scrollLeft());
-    return new Offset(left, top);
+    result.left = DragMath.toPosition(pageX, offsetClick.left,
+        frame.getOffsetLeft(), scrollLeft);
+    result.top = DragMath.toPosition(pageY, offsetClick.top,
+        frame.getOffsetTop(), scrollTop);
+    return result;
   }
 
   private GQuery getScrollParent() {
@@ -496,6 +729,15 @@ public class DraggableHandler {
     }
   }
 
+  /**
+   * Read the scroll offsets impacting the position of the helper. This is the
+   * only DOM access done when the position is updated.
+   */
+  private void readScroll() {
+    scrollLeft = dragFrame.readScrollLeft();
+    scrollTop = dragFrame.readScrollTop();
+  }
+
   private boolean isElementAttached(GQuery $element) {
     // normally this test helper.parents().filter("body").length() == 0 is
     // sufficient but they are a bug in gwtquery in filter function
@@ -23,7 +23,11 @@ import com.google.gwt.query.client.plugins.MouseOptions;
 import com.google.gwt.user.client.ui.Widget;
 import gwtquery.plugins.draggable.client.Draggable.CssClassNames;
 import gwtquery.plugins.draggable.client.events.DragContext;
+import gwtquery.plugins.draggable.client.events.DraggableSelectedEvent;
+import gwtquery.plugins.draggable.client.events.DraggableSelectionChangedEvent;
+import gwtquery.plugins.draggable.client.events.DraggableUnselectedEvent;
 import gwtquery.plugins.draggable.client.gwt.DraggableWidget;
+import gwtquery.plugins.draggable.client.plugins.StackPlugin;
 
 import java.util.List;
 
@@ -137,6 +141,16 @@ public class DraggableOptions extends MouseOptions {
      * place the helper under the initial current helper
      */
     DOWN,
+    /**
+     * place each helper slightly to the right and to the bottom of the
+     * previous one, starting from the initial current helper
+     */
+    FAN,
+    /**
+     * arrange the helpers in a square grid starting with the initial current
+     * helper. Useful to keep large selections compact
+     */
+    GRID,
     /**
      * place the helper to the left of the initial current helper
      */
@@ -196,6 +210,31 @@ public class DraggableOptions extends MouseOptions {
                                         GQuery helperFromOptions);
   }
 
+  /**
+   * Determine how the positions of the selected draggables are computed during
+   * a multi-drag.
+   */
+  public static enum MultiDragMode {
+    /**
+     * The position of each selected draggable is computed from the mouse
+     * position and all the plugins are called for each of them.
+     */
+    PER_DRAGGABLE,
+    /**
+     * The position of the initial draggable is computed from the mouse position
+     * and the plugins are called for it only. The other selected draggables are
+     * moved by the same distance from their start position.
+     */
+    DELTA,
+    /**
+     * Like {@link #DELTA} but the helpers of the other selected draggables are
+     * cloned in a single composite helper, which is the only element moved
+     * during the drag. The helpers are moved to their final position when the
+     * drag stops. Use it for very large selections.
+     */
+    COMPOSITE;
+  }
+
   /**
    * Define what the dragging helper do a the end of the drag operation.
    */
@@ -269,12 +308,32 @@ public class DraggableOptions extends MouseOptions {
     OUTER;
   }
 
+  /**
+   * Determines how the snap elements close to the helper are found during the
+   * drag.
+   */
+  public static enum SnapStrategy {
+    /**
+     * The snap elements are bucketed in a grid. Suits elements of similar
+     * sizes, like the cells of a board.
+     */
+    GRID,
+
+    /**
+     * The edges of the snap elements are kept sorted and searched by
+     * dichotomy. Suits a large number of thin elements, like guide lines.
+     */
+    SORTED_EDGES;
+  }
+
   public static final String DEFAULT_SCOPE = "default";
 
   private GQuery $containment;
   private GQuery $snap;
   private String appendTo;
   private AxisOption axis;
+  private boolean coalesceDragEvents;
+  private boolean containFollowers;
   private String containment;
   // private boolean connectToSortable;
   private int[] containmentAsArray;
@@ -287,6 +346,7 @@ public class DraggableOptions extends MouseOptions {
   private String handle;
   private GQuery helper;
   private HelperType helperType;
+  private MultiDragMode multiDragMode;
   private boolean multipleSelection;
   private DragFunction onBeforeDragStart;
   private DragFunction onDrag;
@@ -302,11 +362,14 @@ public class DraggableOptions extends MouseOptions {
   private int scrollSensitivity;
   private int scrollSpeed;
   private String selectedClassName;
+  private boolean selectionEventPerElement;
   private SelectFunction selectFunction;
   private String snap;
   private SnapMode snapMode;
+  private SnapStrategy snapStrategy;
   private int snapTolerance;
   private GQuery stack;
+  private boolean transformHelper;
   private Integer zIndex;
 
   /**
@@ -406,6 +469,13 @@ public class DraggableOptions extends MouseOptions {
     return helperType;
   }
 
+  /**
+   * @return the {@link MultiDragMode}
+   */
+  public MultiDragMode getMultiDragMode() {
+    return multiDragMode;
+  }
+
   /**
    * @return the {@link DragFunction} called before the drag start
    */
@@ -489,8 +559,10 @@ public class DraggableOptions extends MouseOptions {
   }
 
   /**
-   * @return The speed at which the window should scroll once the mouse pointer
-   *         gets within the scrollSensitivity distance.
+   * @return The speed, in pixels per animation frame, at which the window
+   *         should scroll once the mouse pointer gets within the
+   *         scrollSensitivity distance. This speed is reached when the pointer
+   *         touches the edge.
    */
   public int getScrollSpeed() {
     return scrollSpeed;
@@ -529,6 +601,13 @@ public class DraggableOptions extends MouseOptions {
     return snapMode;
   }
 
+  /**
+   * @return the {@link SnapStrategy}
+   */
+  public SnapStrategy getSnapStrategy() {
+    return snapStrategy;
+  }
+
   /**
    * @return The distance in pixels from the snap element edges at which
    *         snapping should occur.
@@ -551,6 +630,23 @@ public class DraggableOptions extends MouseOptions {
     return zIndex;
   }
 
+  /**
+   * @return if the mouse move events are coalesced in one drag update per
+   *         animation frame
+   */
+  public boolean isCoalesceDragEvents() {
+    return coalesceDragEvents;
+  }
+
+  /**
+   * @return if the draggables moved with the {@link MultiDragMode#DELTA} or
+   *         {@link MultiDragMode#COMPOSITE} mode are kept in their own
+   *         containment
+   */
+  public boolean isContainFollowers() {
+    return containFollowers;
+  }
+
   /**
    * @return if the drag is disabled.
    */
@@ -572,6 +668,15 @@ public class DraggableOptions extends MouseOptions {
     return scroll;
   }
 
+  /**
+   * @return if a {@link DraggableSelectedEvent} or
+   *         {@link DraggableUnselectedEvent} is fired for each element by
+   *         {@link Draggable#selectAll()} and {@link Draggable#unselectAll()}.
+   */
+  public boolean isSelectionEventPerElement() {
+    return selectionEventPerElement;
+  }
+
   /**
    * @return if the helper will snap the edges of the other draggable elements.
    */
@@ -579,6 +684,13 @@ public class DraggableOptions extends MouseOptions {
     return snap != null;
   }
 
+  /**
+   * @return if the helper is moved with a css transform during the drag
+   */
+  public boolean isTransformHelper() {
+    return transformHelper;
+  }
+
   /**
    * The element selected by the appendTo option will be used as the draggable
    * helper's container during dragging. By default, the helper is appended to
@@ -599,6 +711,31 @@ public class DraggableOptions extends MouseOptions {
     this.axis = axis;
   }
 
+  /**
+   * If true, the mouse move events received during the drag are buffered and
+   * only the last one is processed, once per animation frame. The pending event
+   * is always processed before the drag stops so the drop position stays
+   * exact.
+   *
+   * @param coalesceDragEvents
+   */
+  public void setCoalesceDragEvents(boolean coalesceDragEvents) {
+    this.coalesceDragEvents = coalesceDragEvents;
+  }
+
+  /**
+   * If true, the draggables moved with the {@link MultiDragMode#DELTA} or
+   * {@link MultiDragMode#COMPOSITE} mode are constrained in their own
+   * containment. Otherwise only the initial draggable respects its
+   * containment. With the composite mode, the containment is only applied when
+   * the drag stops.
+   *
+   * @param containFollowers
+   */
+  public void setContainFollowers(boolean containFollowers) {
+    this.containFollowers = containFollowers;
+  }
+
   /**
    * Constrains dragging to within the bounds of the specified element (called
    * the container) defining by the selector.
@@ -777,6 +914,19 @@ public class DraggableOptions extends MouseOptions {
     this.helperType = HelperType.ELEMENT;
   }
 
+  /**
+   * Set how the positions of the selected draggables are computed during a
+   * multi-drag. The mode of the draggable starting the drag is used. With
+   * {@link MultiDragMode#DELTA}, the positions of the other selected
+   * draggables are not read again from the DOM during the drag and the
+   * plugins are not called for them in the drag phase.
+   *
+   * @param multiDragMode
+   */
+  public void setMultiDragMode(MultiDragMode multiDragMode) {
+    this.multiDragMode = multiDragMode;
+  }
+
   /**
    * @param multipleSelection
    */
@@ -897,8 +1047,10 @@ public class DraggableOptions extends MouseOptions {
   }
 
   /**
-   * The speed at which the window should scroll once the mouse pointer gets
-   * within the scrollSensitivity distance.
+   * The speed, in pixels per animation frame, at which the window should
+   * scroll once the mouse pointer gets within the scrollSensitivity distance.
+   * The scroll is slower when the pointer is farther from the edge, and goes
+   * on while the pointer stays within the scrollSensitivity distance.
    *
    * @param scrollSpeed
    */
@@ -936,6 +1088,19 @@ public class DraggableOptions extends MouseOptions {
     this.selectedClassName = selectedClassName;
   }
 
+  /**
+   * {@link Draggable#selectAll()} and {@link Draggable#unselectAll()} fire only
+   * one {@link DraggableSelectionChangedEvent}. Set this option to true to also
+   * fire a {@link DraggableSelectedEvent} or {@link DraggableUnselectedEvent}
+   * (and call the onSelected and onUnselected functions) for this draggable.
+   * The selection changes done by the mouse always fire them.
+   *
+   * @param selectionEventPerElement
+   */
+  public void setSelectionEventPerElement(boolean selectionEventPerElement) {
+    this.selectionEventPerElement = selectionEventPerElement;
+  }
+
   /**
    * Define if the draggable will snap to the edges of the other draggable
    * elements when it is near an edge of these elements.
@@ -984,6 +1149,17 @@ public class DraggableOptions extends MouseOptions {
     this.snapMode = snapMode;
   }
 
+  /**
+   * Determines how the snap elements close to the helper are found during the
+   * drag. The helper snaps the same way whatever the strategy. Possible values:
+   * GRID, SORTED_EDGES
+   *
+   * @param snapStrategy
+   */
+  public void setSnapStrategy(SnapStrategy snapStrategy) {
+    this.snapStrategy = snapStrategy;
+  }
+
   /**
    * The distance in pixels from the snap element edges at which snapping should
    * occur.
@@ -1001,6 +1177,9 @@ public class DraggableOptions extends MouseOptions {
    * @param stack
    */
   public void setStack(GQuery stack) {
+    // the elements of the old and the new stack may be grouped differently
+    StackPlugin.invalidateStack(this.stack);
+    StackPlugin.invalidateStack(stack);
     this.stack = stack;
   }
 
@@ -1012,7 +1191,21 @@ public class DraggableOptions extends MouseOptions {
    * @param stack
    */
   public void setStack(String selector) {
-    this.stack = $(selector);
+    setStack($(selector));
+  }
+
+  /**
+   * If true, the helper is moved with a <code>translate3d</code> css transform
+   * during the drag instead of updating its <code>left</code> and
+   * <code>top</code> properties. That lets the browser move the helper without
+   * computing the layout again. The final <code>left</code> and
+   * <code>top</code> are written when the drag stops. The option is ignored
+   * if the browser doesn't support 3d transforms.
+   *
+   * @param transformHelper
+   */
+  public void setTransformHelper(boolean transformHelper) {
+    this.transformHelper = transformHelper;
   }
 
   /**
@@ -1029,6 +1222,8 @@ public class DraggableOptions extends MouseOptions {
     super.initDefault();
     appendTo = "parent";
     axis = AxisOption.NONE;
+    coalesceDragEvents = false;
+    containFollowers = false;
     revert = RevertOption.NEVER;
     cursor = Cursor.AUTO;
     helperType = HelperType.ORIGINAL;
@@ -1038,9 +1233,13 @@ public class DraggableOptions extends MouseOptions {
     scrollSensitivity = 20;
     scrollSpeed = 20;
     snapMode = SnapMode.BOTH;
+    snapStrategy = SnapStrategy.GRID;
     snapTolerance = 20;
+    transformHelper = false;
     multipleSelection = false;
+    multiDragMode = MultiDragMode.PER_DRAGGABLE;
     selectedClassName = null;
+    selectionEventPerElement = false;
     groupingMode = GroupingMode.NONE;
     groupSpacing = 2;
   }
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2010 The gwtquery plugins team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gwtquery.plugins.draggable.client;
+
+import gwtquery.plugins.draggable.client.plugins.BatchedDraggablePlugin;
+import gwtquery.plugins.draggable.client.plugins.DragPhase;
+import gwtquery.plugins.draggable.client.plugins.DraggablePlugin;
+import gwtquery.plugins.draggable.client.plugins.PhasedDraggablePlugin;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * List of the plugins to call during each phase of a drag operation. The
+ * pipeline is compiled once at the start of the drag from the registered
+ * plugins and the options of the draggable, in the registration order. The
+ * {@link BatchedDraggablePlugin} are also listed apart for the measure step.
+ */
+final class PluginPipeline {
+
+  /**
+   * Plugins called during one phase.
+   */
+  private static class Phase {
+    // the plugins having a measure step
+    private final BatchedDraggablePlugin[] measurePlugins;
+    // all the plugins, in registration order
+    private final DraggablePlugin[] plugins;
+
+    Phase(List<DraggablePlugin> executed, DragPhase phase) {
+      List<DraggablePlugin> all = new ArrayList<DraggablePlugin>();
+      List<BatchedDraggablePlugin> batched =
+          new ArrayList<BatchedDraggablePlugin>();
+
+      for (DraggablePlugin plugin : executed) {
+        if (!implementsPhase(plugin, phase)) {
+          continue;
+        }
+        all.add(plugin);
+        if (plugin instanceof BatchedDraggablePlugin) {
+          batched.add((BatchedDraggablePlugin) plugin);
+        }
+      }
+
+      plugins = all.toArray(EMPTY);
+      measurePlugins = batched.toArray(EMPTY_BATCHED);
+    }
+  }
+
+  private static final DraggablePlugin[] EMPTY = new DraggablePlugin[0];
+  private static final BatchedDraggablePlugin[] EMPTY_BATCHED =
+      new BatchedDraggablePlugin[0];
+
+  static PluginPipeline compile(Collection<DraggablePlugin> plugins,
+                                DraggableOptions options) {
+    List<DraggablePlugin> executed = new ArrayList<DraggablePlugin>();
+    for (DraggablePlugin plugin : plugins) {
+      if (plugin.hasToBeExecuted(options)) {
+        executed.add(plugin);
+      }
+    }
+
+    return new PluginPipeline(new Phase(executed, DragPhase.START), new Phase(
+        executed, DragPhase.DRAG), new Phase(executed, DragPhase.STOP));
+  }
+
+  private static boolean implementsPhase(DraggablePlugin plugin,
+                                         DragPhase phase) {
+    return !(plugin instanceof PhasedDraggablePlugin)
+        || ((PhasedDraggablePlugin) plugin).implementsPhase(phase);
+  }
+
+  private final Phase drag;
+  private final Phase start;
+  private final Phase stop;
+
+  private PluginPipeline(Phase start, Phase drag, Phase stop) {
+    this.start = start;
+    this.drag = drag;
+    this.stop = stop;
+  }
+
+  /**
+   * @return the {@link BatchedDraggablePlugin} to measure during the
+   *         <code>phase</code>
+   */
+  BatchedDraggablePlugin[] getMeasurePlugins(DragPhase phase) {
+    return getPhase(phase).measurePlugins;
+  }
+
+  /**
+   * @return all the plugins to call during the <code>phase</code>, the
+   *         {@link BatchedDraggablePlugin} are mutated
+   */
+  DraggablePlugin[] getPlugins(DragPhase phase) {
+    return getPhase(phase).plugins;
+  }
+
+  private Phase getPhase(DragPhase phase) {
+    switch (phase) {
+      case START:
+        return start;
+      case DRAG:
+        return drag;
+      default:
+        return stop;
+    }
+  }
+}
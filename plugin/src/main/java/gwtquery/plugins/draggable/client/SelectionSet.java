@@ -0,0 +1,126 @@
+/*
+ * Copyright 2010 The gwtquery plugins team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gwtquery.plugins.draggable.client;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * List of selected draggables keeping the insertion order. Each item is
+ * indexed in a hash map so <code>add</code>, <code>contains</code> and
+ * <code>remove</code> are done in constant time. Removed items leave a hole in
+ * the list that is compacted at the next read, so a batch of removals costs
+ * one compaction.
+ *
+ * @param <T>
+ */
+final class SelectionSet<T> extends AbstractList<T> {
+
+  private final Map<T, Integer> indexes = new HashMap<T, Integer>();
+  private final List<T> items = new ArrayList<T>();
+  private int holes = 0;
+
+  @Override
+  public boolean add(T item) {
+    if (item == null || indexes.containsKey(item)) {
+      return false;
+    }
+    indexes.put(item, items.size());
+    items.add(item);
+    modCount++;
+    return true;
+  }
+
+  @Override
+  public void clear() {
+    indexes.clear();
+    items.clear();
+    holes = 0;
+    modCount++;
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    return indexes.containsKey(o);
+  }
+
+  @Override
+  public T get(int index) {
+    compact();
+    return items.get(index);
+  }
+
+  @Override
+  public int indexOf(Object o) {
+    if (!indexes.containsKey(o)) {
+      return -1;
+    }
+    compact();
+    return indexes.get(o);
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return indexes.isEmpty();
+  }
+
+  @Override
+  public boolean remove(Object o) {
+    Integer index = indexes.remove(o);
+    if (index == null) {
+      return false;
+    }
+    items.set(index, null);
+    holes++;
+    modCount++;
+    return true;
+  }
+
+  @Override
+  public int size() {
+    return indexes.size();
+  }
+
+  /**
+   * @return a copy of the items, in insertion order.
+   */
+  List<T> toList() {
+    compact();
+    return new ArrayList<T>(items);
+  }
+
+  private void compact() {
+    if (holes == 0) {
+      return;
+    }
+    int size = 0;
+    for (int i = 0; i < items.size(); i++) {
+      T item = items.get(i);
+      if (item != null) {
+        items.set(size, item);
+        indexes.put(item, size);
+        size++;
+      }
+    }
+    while (items.size() > size) {
+      items.remove(items.size() - 1);
+    }
+    holes = 0;
+  }
+}
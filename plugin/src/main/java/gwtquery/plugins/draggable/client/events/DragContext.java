@@ -17,6 +17,7 @@ package gwtquery.plugins.draggable.client.events;
 
 import com.google.gwt.dom.client.Element;
 import com.google.gwt.query.client.GQuery.Offset;
+import gwtquery.plugins.draggable.client.DragStateKey;
 import gwtquery.plugins.draggable.client.DraggableHandler;
 import gwtquery.plugins.draggable.client.gwt.DraggableWidget;
 
@@ -39,6 +40,11 @@ public class DragContext {
 
   private Element initialDraggable;
 
+  // kept after the end of the drag operation, until the stop event is fired
+  private Element overDroppable;
+
+  // resolved once, the context is used for each mouse move
+  private DraggableHandler handler;
 
   /**
    * Constructor
@@ -89,11 +95,19 @@ public class DragContext {
     return null;
   }
 
+  /**
+   * @return the state stored with the given key by a plugin during the
+   *         current drag operation, null if none.
+   */
+  public <T> T getDragState(DragStateKey<T> key) {
+    return getHandler().getDragState(key);
+  }
+
   /**
    * @return the DOM element used for dragging display
    */
   public Element getHelper() {
-    DraggableHandler handler = DraggableHandler.getInstance(draggable);
+    DraggableHandler handler = getHandler();
 
     if (handler.getHelper() != null) {
       return handler.getHelper().get(0);
@@ -105,7 +119,15 @@ public class DragContext {
    * @return the {@link Offset} of the helper element.
    */
   public Offset getHelperPosition() {
-    return DraggableHandler.getInstance(draggable).getPosition();
+    return getHandler().getPosition();
+  }
+
+  /**
+   * @return the droppable under the mouse pointer when the draggable was
+   *         dropped, null if none.
+   */
+  public Element getOverDroppable() {
+    return overDroppable;
   }
 
   /**
@@ -123,5 +145,19 @@ public class DragContext {
     return initialDraggable;
   }
 
+  /**
+   * Set by the drag and drop manager when the draggable is dropped.
+   */
+  public void setOverDroppable(Element overDroppable) {
+    this.overDroppable = overDroppable;
+  }
+
+  private DraggableHandler getHandler() {
+    if (handler == null) {
+      handler = DraggableHandler.getInstance(draggable);
+    }
+    return handler;
+  }
+
 
 }
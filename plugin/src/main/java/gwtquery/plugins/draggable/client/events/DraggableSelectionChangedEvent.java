@@ -0,0 +1,71 @@
+/*
+ * Copyright 2010 The gwtquery plugins team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gwtquery.plugins.draggable.client.events;
+
+import com.google.gwt.dom.client.Element;
+import com.google.gwt.event.shared.EventHandler;
+import com.google.gwt.event.shared.GwtEvent;
+
+import java.util.List;
+
+/**
+ * Event fired once when several draggables are selected or unselected in a
+ * single operation (e.g. when all selected draggables are unselected).
+ */
+public class DraggableSelectionChangedEvent extends
+    GwtEvent<DraggableSelectionChangedEvent.DraggableSelectionChangedHandler> {
+
+  public interface DraggableSelectionChangedHandler extends EventHandler {
+    public void onDraggableSelectionChanged(DraggableSelectionChangedEvent event);
+  }
+
+  public static Type<DraggableSelectionChangedHandler> TYPE = new Type<DraggableSelectionChangedHandler>();
+
+  private List<Element> selectedDraggables;
+  private List<Element> unselectedDraggables;
+
+  public DraggableSelectionChangedEvent(List<Element> selectedDraggables,
+                                        List<Element> unselectedDraggables) {
+    this.selectedDraggables = selectedDraggables;
+    this.unselectedDraggables = unselectedDraggables;
+  }
+
+  @Override
+  public Type<DraggableSelectionChangedHandler> getAssociatedType() {
+    return TYPE;
+  }
+
+  /**
+   * @return the draggable DOM elements selected by the operation
+   */
+  public List<Element> getSelectedDraggables() {
+    return selectedDraggables;
+  }
+
+  /**
+   * @return the draggable DOM elements unselected by the operation
+   */
+  public List<Element> getUnselectedDraggables() {
+    return unselectedDraggables;
+  }
+
+  @Override
+  protected void dispatch(DraggableSelectionChangedHandler handler) {
+    handler.onDraggableSelectionChanged(this);
+
+  }
+
+}
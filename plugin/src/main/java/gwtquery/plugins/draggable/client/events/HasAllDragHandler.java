@@ -22,5 +22,6 @@ package gwtquery.plugins.draggable.client.events;
  * @author Julien Dramaix (julien.dramaix@gmail.com, @jdramaix)
  */
 public interface HasAllDragHandler extends HasDragHandler, HasDragStartHandler,
-    HasDragStopHandler, HasBeforeDragStartHandler, HasDraggableSelectedHandler, HasDraggableUnselectedHandler {
+    HasDragStopHandler, HasBeforeDragStartHandler, HasDraggableSelectedHandler, HasDraggableUnselectedHandler,
+    HasDraggableSelectionChangedHandler {
 }
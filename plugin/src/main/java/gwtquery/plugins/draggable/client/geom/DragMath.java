@@ -0,0 +1,112 @@
+/*
+ * Copyright 2010 The gwtquery plugins team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gwtquery.plugins.draggable.client.geom;
+
+/**
+ * Arithmetic used to compute the position of the helper during a drag
+ * operation. The methods work on one axis at a time and never access the DOM.
+ */
+public final class DragMath {
+
+  /**
+   * Constrain a value in [min, max]. If max is lower than min, max is
+   * returned.
+   */
+  public static int clamp(int value, int min, int max) {
+    return Math.min(max, Math.max(min, value));
+  }
+
+  /**
+   * Constrain the mouse coordinate in order to keep the helper in the
+   * containment.
+   *
+   * @param page  the coordinate of the mouse
+   * @param click the distance between the mouse and the edge of the helper
+   * @param min   the minimum coordinate of the edge of the helper
+   * @param max   the maximum coordinate of the edge of the helper
+   * @return the constrained coordinate of the mouse
+   */
+  public static int contain(int page, int click, int min, int max) {
+    int result = page;
+    if (page - click < min) {
+      result = min + click;
+    }
+    if (page - click > max) {
+      result = max + click;
+    }
+    return result;
+  }
+
+  /**
+   * Round the mouse coordinate to the grid starting at the coordinate where the
+   * drag started.
+   */
+  public static int snapToGrid(int page, int originalPage, int cell) {
+    return originalPage + Math.round((page - originalPage) / cell) * cell;
+  }
+
+  /**
+   * Round the mouse coordinate to the grid. If the rounded coordinate moves the
+   * helper out of the containment, the next cell towards the containment is
+   * used.
+   */
+  public static int snapToGrid(int page, int originalPage, int cell,
+                               int click, int min, int max) {
+    int rounded = snapToGrid(page, originalPage, cell);
+    boolean before = rounded - click < min;
+    boolean after = rounded - click > max;
+
+    return !(before || after) ? rounded : !before ? rounded - cell : rounded
+        + cell;
+  }
+
+  /**
+   * Convert a relative position of the helper to an absolute position.
+   *
+   * @param offset the offset of the offset parent plus the relative offset of
+   *               the helper
+   * @param scroll the scroll offset to add to the position
+   */
+  public static int toAbsolute(int position, int offset, int scroll) {
+    return position + offset - scroll;
+  }
+
+  /**
+   * Compute the relative position of the helper from the mouse coordinate.
+   *
+   * @param click  the distance between the mouse and the edge of the helper
+   * @param offset the offset of the offset parent plus the relative offset of
+   *               the helper
+   * @param scroll the scroll offset to add to the position
+   */
+  public static int toPosition(int page, int click, int offset, int scroll) {
+    return page - click - offset + scroll;
+  }
+
+  /**
+   * Convert an absolute position of the helper to a relative position.
+   *
+   * @param offset the offset of the offset parent plus the relative offset of
+   *               the helper
+   * @param scroll the scroll offset to add to the position
+   */
+  public static int toRelative(int absolute, int offset, int scroll) {
+    return absolute - offset + scroll;
+  }
+
+  private DragMath() {
+  }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2010 The gwtquery plugins team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gwtquery.plugins.draggable.client.geom;
+
+/**
+ * Place the helpers of a multi-drag one after the other, next to the helper
+ * of the initial draggable. All coordinates are absolute.
+ * <p/>
+ * The helpers can be placed one by one with {@link #place(int, int)} or all
+ * at once with {@link #placeAll(int, int[], int[], int[], int[])}. The grid
+ * needs the sizes of all the helpers and can only be placed all at once.
+ */
+public final class GroupLayout {
+
+  /**
+   * Direction in which the helpers are placed.
+   */
+  public static enum Direction {
+    DOWN,
+    /**
+     * each helper is shifted by the spacing to the right and to the bottom of
+     * the previous one
+     */
+    FAN,
+    /**
+     * the helpers fill the rows of a square grid, the helper of the initial
+     * draggable being in the first cell. The cells are as large as the largest
+     * helper.
+     */
+    GRID, LEFT, RIGHT, UP
+  }
+
+  private final Direction direction;
+  private final int spacing;
+  private final int originLeft;
+  private final int originTop;
+
+  // last placed helper
+  private int lastLeft;
+  private int lastTop;
+  private int lastWidth;
+  private int lastHeight;
+
+  /**
+   * @param direction direction in which the helpers are placed
+   * @param spacing   space in pixels between two helpers
+   * @param left      left of the helper of the initial draggable
+   * @param top       top of the helper of the initial draggable
+   * @param width     width of the helper of the initial draggable
+   * @param height    height of the helper of the initial draggable
+   */
+  public GroupLayout(Direction direction, int spacing, int left, int top,
+                     int width, int height) {
+    this.direction = direction;
+    this.spacing = spacing;
+    this.originLeft = left;
+    this.originTop = top;
+    this.lastLeft = left;
+    this.lastTop = top;
+    this.lastWidth = width;
+    this.lastHeight = height;
+  }
+
+  /**
+   * @return the left of the last placed helper
+   */
+  public int getLeft() {
+    return lastLeft;
+  }
+
+  /**
+   * @return the top of the last placed helper
+   */
+  public int getTop() {
+    return lastTop;
+  }
+
+  /**
+   * Place the next helper. Its position is then returned by {@link #getLeft()}
+   * and {@link #getTop()}.
+   *
+   * @throws IllegalStateException if the direction is {@link Direction#GRID}
+   */
+  public GroupLayout place(int width, int height) {
+    switch (direction) {
+      case DOWN:
+        lastTop += lastHeight + spacing;
+        break;
+      case UP:
+        lastTop -= height + spacing;
+        break;
+      case LEFT:
+        lastLeft -= width + spacing;
+        break;
+      case RIGHT:
+        lastLeft += lastWidth + spacing;
+        break;
+      case FAN:
+        lastLeft += spacing;
+        lastTop += spacing;
+        break;
+      case GRID:
+        throw new IllegalStateException(
+            "a grid can only be placed with placeAll");
+      default:
+        break;
+    }
+    lastWidth = width;
+    lastHeight = height;
+    return this;
+  }
+
+  /**
+   * Place the helpers in one pass. The helper <code>i</code> is placed at
+   * <code>lefts[i]</code> and <code>tops[i]</code>. Then {@link #getLeft()}
+   * and {@link #getTop()} return the position of the last one.
+   *
+   * @param count   number of helpers to place
+   * @param widths  widths of the helpers
+   * @param heights heights of the helpers
+   * @param lefts   receive the left of the helpers
+   * @param tops    receive the top of the helpers
+   */
+  public GroupLayout placeAll(int count, int[] widths, int[] heights,
+                              int[] lefts, int[] tops) {
+    if (direction == Direction.GRID) {
+      placeGrid(count, widths, heights, lefts, tops);
+      return this;
+    }
+
+    for (int i = 0; i < count; i++) {
+      place(widths[i], heights[i]);
+      lefts[i] = lastLeft;
+      tops[i] = lastTop;
+    }
+    return this;
+  }
+
+  private void placeGrid(int count, int[] widths, int[] heights, int[] lefts,
+                         int[] tops) {
+    if (count == 0) {
+      return;
+    }
+
+    // the first cell is taken by the helper of the initial draggable
+    int cellWidth = lastWidth;
+    int cellHeight = lastHeight;
+    for (int i = 0; i < count; i++) {
+      cellWidth = Math.max(cellWidth, widths[i]);
+      cellHeight = Math.max(cellHeight, heights[i]);
+    }
+    int columns = (int) Math.ceil(Math.sqrt(count + 1));
+
+    for (int i = 0; i < count; i++) {
+      int cell = i + 1;
+      lefts[i] = originLeft + (cell % columns) * (cellWidth + spacing);
+      tops[i] = originTop + (cell / columns) * (cellHeight + spacing);
+    }
+
+    lastLeft = lefts[count - 1];
+    lastTop = tops[count - 1];
+    lastWidth = widths[count - 1];
+    lastHeight = heights[count - 1];
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2010 The gwtquery plugins team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gwtquery.plugins.draggable.client.geom;
+
+/**
+ * Set of small non-negative ids backed by a bitset. The ids are also kept in
+ * a list, so that iterating or clearing the set costs its size and not the
+ * largest id.
+ */
+public final class IdSet {
+
+  private int[] words;
+  private int[] ids;
+  private int size;
+
+  /**
+   * @param capacity expected upper bound of the ids, the set grows if needed
+   */
+  public IdSet(int capacity) {
+    words = new int[(Math.max(capacity, 1) + 31) >> 5];
+    ids = new int[Math.max(capacity, 1)];
+  }
+
+  /**
+   * @return false if the id was already in the set
+   */
+  public boolean add(int id) {
+    if (contains(id)) {
+      return false;
+    }
+    int word = id >> 5;
+    if (word >= words.length) {
+      int[] newWords = new int[Math.max(word + 1, words.length * 2)];
+      System.arraycopy(words, 0, newWords, 0, words.length);
+      words = newWords;
+    }
+    if (size == ids.length) {
+      int[] newIds = new int[ids.length * 2];
+      System.arraycopy(ids, 0, newIds, 0, size);
+      ids = newIds;
+    }
+    words[word] |= 1 << (id & 31);
+    ids[size++] = id;
+    return true;
+  }
+
+  public void clear() {
+    for (int i = 0; i < size; i++) {
+      words[ids[i] >> 5] = 0;
+    }
+    size = 0;
+  }
+
+  public boolean contains(int id) {
+    int word = id >> 5;
+    return word < words.length && (words[word] & (1 << (id & 31))) != 0;
+  }
+
+  /**
+   * @return the i-th id, in the order they were added
+   */
+  public int get(int i) {
+    return ids[i];
+  }
+
+  public int size() {
+    return size;
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2010 The gwtquery plugins team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gwtquery.plugins.draggable.client.geom;
+
+/**
+ * An immutable rectangle in page coordinates.
+ */
+public final class Rect {
+
+  private final int left;
+  private final int top;
+  private final int right;
+  private final int bottom;
+
+  public Rect(int left, int top, int width, int height) {
+    this.left = left;
+    this.top = top;
+    this.right = left + width;
+    this.bottom = top + height;
+  }
+
+  /**
+   * @return true if the point is inside the rectangle. The right and bottom
+   *         edges are excluded.
+   */
+  public boolean contains(int x, int y) {
+    return left <= x && x < right && top <= y && y < bottom;
+  }
+
+  public int getBottom() {
+    return bottom;
+  }
+
+  public int getHeight() {
+    return bottom - top;
+  }
+
+  public int getLeft() {
+    return left;
+  }
+
+  public int getRight() {
+    return right;
+  }
+
+  public int getTop() {
+    return top;
+  }
+
+  public int getWidth() {
+    return right - left;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (!(o instanceof Rect)) {
+      return false;
+    }
+    Rect other = (Rect) o;
+    return left == other.left && top == other.top && right == other.right
+        && bottom == other.bottom;
+  }
+
+  @Override
+  public int hashCode() {
+    return ((left * 31 + top) * 31 + right) * 31 + bottom;
+  }
+
+  @Override
+  public String toString() {
+    return "Rect[" + left + "," + top + "," + right + "," + bottom + "]";
+  }
+}
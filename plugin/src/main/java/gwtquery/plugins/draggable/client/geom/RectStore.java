@@ -0,0 +1,141 @@
+/*
+ * Copyright 2010 The gwtquery plugins team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gwtquery.plugins.draggable.client.geom;
+
+import java.util.List;
+
+/**
+ * Rectangles in page coordinates stored column by column in arrays of
+ * primitives, one array per coordinate. Used by the snap and the drop engines
+ * to keep thousands of targets without allocating an object per target.
+ * <p/>
+ * Each rectangle has an id chosen by the caller, for instance the position of
+ * its element in another list.
+ */
+public final class RectStore {
+
+  private int[] lefts;
+  private int[] tops;
+  private int[] rights;
+  private int[] bottoms;
+  private int[] ids;
+  private int size;
+
+  public RectStore() {
+    this(16);
+  }
+
+  public RectStore(int capacity) {
+    allocate(Math.max(capacity, 1));
+  }
+
+  /**
+   * Copy the given rectangles, their id being their position in the list.
+   */
+  public RectStore(List<Rect> rects) {
+    this(rects.size());
+    for (int i = 0; i < rects.size(); i++) {
+      Rect rect = rects.get(i);
+      add(rect.getLeft(), rect.getTop(), rect.getWidth(), rect.getHeight(), i);
+    }
+  }
+
+  /**
+   * Append a rectangle.
+   *
+   * @return the position of the rectangle in the store
+   */
+  public int add(int left, int top, int width, int height, int id) {
+    if (size == lefts.length) {
+      allocate(size * 2);
+    }
+    ids[size] = id;
+    set(size, left, top, width, height);
+    return size++;
+  }
+
+  public void clear() {
+    size = 0;
+  }
+
+  /**
+   * @return true if the point is inside the i-th rectangle. The right and
+   *         bottom edges are excluded.
+   */
+  public boolean contains(int i, int x, int y) {
+    return lefts[i] <= x && x < rights[i] && tops[i] <= y && y < bottoms[i];
+  }
+
+  public int getBottom(int i) {
+    return bottoms[i];
+  }
+
+  public int getId(int i) {
+    return ids[i];
+  }
+
+  public int getLeft(int i) {
+    return lefts[i];
+  }
+
+  public int getRight(int i) {
+    return rights[i];
+  }
+
+  public int getTop(int i) {
+    return tops[i];
+  }
+
+  /**
+   * Replace the coordinates of the i-th rectangle, its id is kept.
+   */
+  public void set(int i, int left, int top, int width, int height) {
+    lefts[i] = left;
+    tops[i] = top;
+    rights[i] = left + width;
+    bottoms[i] = top + height;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Move the i-th rectangle by the given distance.
+   */
+  public void translate(int i, int deltaLeft, int deltaTop) {
+    lefts[i] += deltaLeft;
+    rights[i] += deltaLeft;
+    tops[i] += deltaTop;
+    bottoms[i] += deltaTop;
+  }
+
+  private void allocate(int capacity) {
+    lefts = grow(lefts, capacity);
+    tops = grow(tops, capacity);
+    rights = grow(rights, capacity);
+    bottoms = grow(bottoms, capacity);
+    ids = grow(ids, capacity);
+  }
+
+  private int[] grow(int[] values, int capacity) {
+    int[] grown = new int[capacity];
+    if (values != null) {
+      System.arraycopy(values, 0, grown, 0, size);
+    }
+    return grown;
+  }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2010 The gwtquery plugins team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gwtquery.plugins.draggable.client.geom;
+
+/**
+ * The edges of the snap targets kept in sorted arrays, one per kind of edge.
+ * The targets having an edge close to an edge of the helper are found by a
+ * binary search, whatever the number of targets. This suits a large number of
+ * thin targets, like guide lines.
+ * <p/>
+ * The arrays are built once at the start of the drag.
+ */
+public final class SnapEdges implements SnapTargets {
+
+  /**
+   * Return the position of the first value greater or equal to the given
+   * value.
+   */
+  private static int lowerBound(int[] values, int value) {
+    int low = 0;
+    int high = values.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (values[middle] < value) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  private final RectStore targets;
+
+  // sorted edges, and for each of them the index of its target
+  private final int[] sortedLefts;
+  private final int[] leftTargets;
+  private final int[] sortedTops;
+  private final int[] topTargets;
+  private final int[] sortedRights;
+  private final int[] rightTargets;
+  private final int[] sortedBottoms;
+  private final int[] bottomTargets;
+
+  public SnapEdges(RectStore targets) {
+    this.targets = targets;
+
+    int size = targets.size();
+    int[] edges = new int[size];
+    int[] buffer = new int[size];
+
+    sortedLefts = new int[size];
+    leftTargets = new int[size];
+    for (int i = 0; i < size; i++) {
+      edges[i] = targets.getLeft(i);
+    }
+    sort(edges, buffer, sortedLefts, leftTargets);
+
+    sortedTops = new int[size];
+    topTargets = new int[size];
+    for (int i = 0; i < size; i++) {
+      edges[i] = targets.getTop(i);
+    }
+    sort(edges, buffer, sortedTops, topTargets);
+
+    sortedRights = new int[size];
+    rightTargets = new int[size];
+    for (int i = 0; i < size; i++) {
+      edges[i] = targets.getRight(i);
+    }
+    sort(edges, buffer, sortedRights, rightTargets);
+
+    sortedBottoms = new int[size];
+    bottomTargets = new int[size];
+    for (int i = 0; i < size; i++) {
+      edges[i] = targets.getBottom(i);
+    }
+    sort(edges, buffer, sortedBottoms, bottomTargets);
+  }
+
+  public RectStore getTargets() {
+    return targets;
+  }
+
+  public boolean snap(SnapResolver resolver) {
+    return resolver.resolve(this);
+  }
+
+  /**
+   * @return the index of the last target in range of the helper whose bottom
+   *         edge is closer than the tolerance to the given value, -1 if none
+   */
+  int lastBottomNear(int value, SnapResolver resolver) {
+    return lastNear(sortedBottoms, bottomTargets, value, resolver);
+  }
+
+  /**
+   * @return the index of the last target in range of the helper whose left
+   *         edge is closer than the tolerance to the given value, -1 if none
+   */
+  int lastLeftNear(int value, SnapResolver resolver) {
+    return lastNear(sortedLefts, leftTargets, value, resolver);
+  }
+
+  /**
+   * @return the index of the last target in range of the helper whose right
+   *         edge is closer than the tolerance to the given value, -1 if none
+   */
+  int lastRightNear(int value, SnapResolver resolver) {
+    return lastNear(sortedRights, rightTargets, value, resolver);
+  }
+
+  /**
+   * @return the index of the last target in range of the helper whose top
+   *         edge is closer than the tolerance to the given value, -1 if none
+   */
+  int lastTopNear(int value, SnapResolver resolver) {
+    return lastNear(sortedTops, topTargets, value, resolver);
+  }
+
+  private int lastNear(int[] sortedEdges, int[] edgeTargets, int value,
+                       SnapResolver resolver) {
+    int tolerance = resolver.getTolerance();
+    int last = -1;
+    // the edges within the tolerance are contiguous in the sorted array, the
+    // cross-axis check is only done on them
+    for (int i = lowerBound(sortedEdges, value - tolerance); i < sortedEdges
+        .length && sortedEdges[i] <= value + tolerance; i++) {
+      int target = edgeTargets[i];
+      if (target > last && resolver.isInRange(targets.getLeft(target),
+          targets.getTop(target), targets.getRight(target),
+          targets.getBottom(target))) {
+        last = target;
+      }
+    }
+    return last;
+  }
+
+  /**
+   * Sort the indices of the targets by edge, then copy the edges in that
+   * order. The merge sort is stable: the targets having the same edge stay in
+   * their order.
+   */
+  private void sort(int[] edges, int[] buffer, int[] sortedEdges,
+                    int[] edgeTargets) {
+    int size = edges.length;
+    for (int i = 0; i < size; i++) {
+      edgeTargets[i] = i;
+    }
+
+    int[] from = edgeTargets;
+    int[] to = buffer;
+    for (int width = 1; width < size; width *= 2) {
+      for (int low = 0; low < size; low += 2 * width) {
+        int middle = Math.min(low + width, size);
+        int high = Math.min(low + 2 * width, size);
+        int i = low;
+        int j = middle;
+        for (int k = low; k < high; k++) {
+          if (i < middle && (j >= high || edges[from[i]] <= edges[from[j]])) {
+            to[k] = from[i++];
+          } else {
+            to[k] = from[j++];
+          }
+        }
+      }
+      int[] swap = from;
+      from = to;
+      to = swap;
+    }
+    if (from != edgeTargets) {
+      System.arraycopy(from, 0, edgeTargets, 0, size);
+    }
+
+    for (int i = 0; i < size; i++) {
+      sortedEdges[i] = edges[edgeTargets[i]];
+    }
+  }
+}
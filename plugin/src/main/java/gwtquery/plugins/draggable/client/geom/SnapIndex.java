@@ -0,0 +1,262 @@
+/*
+ * Copyright 2010 The gwtquery plugins team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gwtquery.plugins.draggable.client.geom;
+
+import java.util.Arrays;
+
+/**
+ * Uniform grid bucketing the snap targets, so that a mouse move only tests
+ * the targets close to the helper instead of all of them.
+ * <p/>
+ * Each target is registered in every cell its rectangle covers. The
+ * candidates of a query are returned in the order of the target store, so
+ * that resolving them gives exactly the same result as resolving the whole
+ * store. The index is built once at the start of the drag. The targets
+ * replaced or appended afterwards are notified with {@link #invalidate(int)}
+ * and tested at each query until the grid is built again, once too many
+ * targets were invalidated.
+ * <p/>
+ * The same index is used to hit-test the droppables.
+ */
+public final class SnapIndex implements SnapTargets {
+
+  // upper bound of the number of cells per target, to bound the memory used
+  // when the targets are sparse
+  private static final int MAX_CELLS_PER_TARGET = 4;
+
+  // the grid is built again when more than this number of targets, or an
+  // eighth of the targets, are invalidated
+  private static final int MIN_OVERFLOW = 16;
+
+  private static int floorDiv(int value, int divisor) {
+    int quotient = value / divisor;
+    return value % divisor < 0 ? quotient - 1 : quotient;
+  }
+
+  private final RectStore targets;
+
+  private int cellSize;
+  private int originLeft;
+  private int originTop;
+  private int columns;
+  private int rows;
+
+  // targets of the cell i are cellTargets[cellStart[i]..cellStart[i + 1]]
+  private int[] cellStart;
+  private int[] cellTargets;
+
+  // targets invalidated since the last build, their cells are ignored
+  private boolean[] invalidated;
+  private int[] overflow;
+  private int overflowCount;
+  private int builtSize;
+
+  // query buffers, reused for each mouse move
+  private int[] visited;
+  private int[] candidates;
+  private int query;
+
+  public SnapIndex(RectStore targets) {
+    this.targets = targets;
+    allocate(targets.size());
+    build();
+  }
+
+  /**
+   * @return the position in the target store of the i-th candidate found by
+   *         the last call to {@link #query(int, int, int, int)}
+   */
+  public int getCandidateIndex(int i) {
+    return candidates[i];
+  }
+
+  public RectStore getTargets() {
+    return targets;
+  }
+
+  /**
+   * Notify the index that the target at the given position of the store was
+   * replaced, or appended to the store.
+   */
+  public void invalidate(int i) {
+    if (targets.size() > visited.length) {
+      allocate(Math.max(targets.size(), visited.length * 2));
+    }
+    if (invalidated[i]) {
+      return;
+    }
+    invalidated[i] = true;
+    overflow[overflowCount++] = i;
+
+    if (overflowCount > Math.max(MIN_OVERFLOW, builtSize / 8)) {
+      build();
+    }
+  }
+
+  public boolean snap(SnapResolver resolver) {
+    return resolver.resolve(this);
+  }
+
+  /**
+   * Find the targets overlapping the given area, bounds included.
+   *
+   * @return the number of candidates, available through
+   *         {@link #getCandidateIndex(int)} in the order of the target store
+   */
+  public int query(int left, int top, int right, int bottom) {
+    // the stamp avoids clearing the visited flags between two queries
+    query++;
+    int count = 0;
+
+    // the invalidated targets are tested one by one
+    for (int i = 0; i < overflowCount; i++) {
+      int target = overflow[i];
+      if (targets.getLeft(target) <= right && left <= targets.getRight(target)
+          && targets.getTop(target) <= bottom
+          && top <= targets.getBottom(target)) {
+        visited[target] = query;
+        candidates[count++] = target;
+      }
+    }
+
+    if (builtSize > 0) {
+      count = queryGrid(left, top, right, bottom, count);
+    }
+
+    // the last target wins: keep the order of the store
+    Arrays.sort(candidates, 0, count);
+    return count;
+  }
+
+  private void allocate(int capacity) {
+    int[] oldVisited = visited;
+    boolean[] oldInvalidated = invalidated;
+    int[] oldOverflow = overflow;
+
+    visited = new int[capacity];
+    candidates = new int[capacity];
+    invalidated = new boolean[capacity];
+    overflow = new int[capacity];
+
+    if (oldVisited != null) {
+      System.arraycopy(oldVisited, 0, visited, 0, oldVisited.length);
+      System.arraycopy(oldInvalidated, 0, invalidated, 0,
+          oldInvalidated.length);
+      System.arraycopy(oldOverflow, 0, overflow, 0, overflowCount);
+    }
+  }
+
+  private void build() {
+    int size = targets.size();
+    Arrays.fill(invalidated, false);
+    overflowCount = 0;
+    builtSize = size;
+    if (size == 0) {
+      return;
+    }
+
+    int minLeft = Integer.MAX_VALUE;
+    int minTop = Integer.MAX_VALUE;
+    int maxRight = Integer.MIN_VALUE;
+    int maxBottom = Integer.MIN_VALUE;
+    double totalSize = 0;
+    for (int i = 0; i < size; i++) {
+      minLeft = Math.min(minLeft, targets.getLeft(i));
+      minTop = Math.min(minTop, targets.getTop(i));
+      maxRight = Math.max(maxRight, targets.getRight(i));
+      maxBottom = Math.max(maxBottom, targets.getBottom(i));
+      totalSize += Math.max(targets.getRight(i) - targets.getLeft(i),
+          targets.getBottom(i) - targets.getTop(i));
+    }
+
+    // a cell as large as an average target, grown until the grid is not
+    // much larger than the number of targets
+    cellSize = (int) Math.max(1, totalSize / size);
+    double maxCells = (double) size * MAX_CELLS_PER_TARGET;
+    while (cellCount(minLeft, minTop, maxRight, maxBottom) > maxCells) {
+      cellSize *= 2;
+    }
+
+    originLeft = minLeft;
+    originTop = minTop;
+    columns = (maxRight - minLeft) / cellSize + 1;
+    rows = (maxBottom - minTop) / cellSize + 1;
+
+    // two passes: count the targets per cell, then fill the cells
+    cellStart = new int[columns * rows + 1];
+    for (int i = 0; i < size; i++) {
+      for (int row = row(targets.getTop(i)); row <= row(targets.getBottom(i));
+           row++) {
+        for (int column = column(targets.getLeft(i)); column <= column(targets
+            .getRight(i)); column++) {
+          cellStart[row * columns + column + 1]++;
+        }
+      }
+    }
+    for (int cell = 0; cell < columns * rows; cell++) {
+      cellStart[cell + 1] += cellStart[cell];
+    }
+
+    cellTargets = new int[cellStart[columns * rows]];
+    int[] fill = new int[columns * rows];
+    for (int i = 0; i < size; i++) {
+      for (int row = row(targets.getTop(i)); row <= row(targets.getBottom(i));
+           row++) {
+        for (int column = column(targets.getLeft(i)); column <= column(targets
+            .getRight(i)); column++) {
+          int cell = row * columns + column;
+          cellTargets[cellStart[cell] + fill[cell]++] = i;
+        }
+      }
+    }
+  }
+
+  private double cellCount(int minLeft, int minTop, int maxRight,
+                           int maxBottom) {
+    return ((double) ((maxRight - minLeft) / cellSize) + 1)
+        * ((maxBottom - minTop) / cellSize + 1);
+  }
+
+  private int column(int x) {
+    return (x - originLeft) / cellSize;
+  }
+
+  private int queryGrid(int left, int top, int right, int bottom, int count) {
+    int firstColumn = Math.max(0, floorDiv(left - originLeft, cellSize));
+    int lastColumn = Math.min(columns - 1, floorDiv(right - originLeft,
+        cellSize));
+    int firstRow = Math.max(0, floorDiv(top - originTop, cellSize));
+    int lastRow = Math.min(rows - 1, floorDiv(bottom - originTop, cellSize));
+
+    for (int row = firstRow; row <= lastRow; row++) {
+      for (int column = firstColumn; column <= lastColumn; column++) {
+        int cell = row * columns + column;
+        for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+          int target = cellTargets[i];
+          if (visited[target] != query && !invalidated[target]) {
+            visited[target] = query;
+            candidates[count++] = target;
+          }
+        }
+      }
+    }
+    return count;
+  }
+
+  private int row(int y) {
+    return (y - originTop) / cellSize;
+  }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2010 The gwtquery plugins team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gwtquery.plugins.draggable.client.geom;
+
+import java.util.List;
+
+/**
+ * Compute where the helper snaps to the edges of the snap targets. All
+ * coordinates are absolute. The same instance can be reused for each mouse
+ * move in order to avoid allocations.
+ * <p/>
+ * A target is taken into account if one of the corners of the helper is
+ * closer than the tolerance to the target. When several targets snap the
+ * helper on the same axis, the last one wins.
+ */
+public final class SnapResolver {
+
+  private int tolerance;
+  private boolean inner;
+  private boolean outer;
+
+  private int helperLeft;
+  private int helperTop;
+  private int helperRight;
+  private int helperBottom;
+
+  private boolean snappedLeft;
+  private boolean snappedTop;
+  private int left;
+  private int top;
+
+  /**
+   * Set the snap options.
+   *
+   * @param tolerance distance in pixels from the edges at which the snapping
+   *                  occurs
+   * @param inner     snap the inner edges of the targets
+   * @param outer     snap the outer edges of the targets
+   */
+  public SnapResolver init(int tolerance, boolean inner, boolean outer) {
+    this.tolerance = tolerance;
+    this.inner = inner;
+    this.outer = outer;
+    return this;
+  }
+
+  /**
+   * Start the resolution for the helper at the given position.
+   */
+  public SnapResolver start(int left, int top, int width, int height) {
+    helperLeft = left;
+    helperTop = top;
+    helperRight = left + width;
+    helperBottom = top + height;
+    snappedLeft = false;
+    snappedTop = false;
+    this.left = left;
+    this.top = top;
+    return this;
+  }
+
+  /**
+   * @return the left of the helper once snapped
+   */
+  public int getLeft() {
+    return left;
+  }
+
+  /**
+   * @return the tolerance set by {@link #init(int, boolean, boolean)}
+   */
+  public int getTolerance() {
+    return tolerance;
+  }
+
+  /**
+   * @return the top of the helper once snapped
+   */
+  public int getTop() {
+    return top;
+  }
+
+  public boolean isSnapped() {
+    return snappedLeft || snappedTop;
+  }
+
+  public boolean isSnappedLeft() {
+    return snappedLeft;
+  }
+
+  public boolean isSnappedTop() {
+    return snappedTop;
+  }
+
+  /**
+   * Snap the helper to all the targets, in order.
+   *
+   * @return true if the helper snapped on one axis at least
+   */
+  public boolean resolve(List<Rect> targets) {
+    for (int i = 0; i < targets.size(); i++) {
+      snap(targets.get(i));
+    }
+    return isSnapped();
+  }
+
+  /**
+   * Snap the helper to all the stored targets, in order.
+   *
+   * @return true if the helper snapped on one axis at least
+   */
+  public boolean resolve(RectStore targets) {
+    for (int i = 0; i < targets.size(); i++) {
+      snap(targets.getLeft(i), targets.getTop(i), targets.getRight(i),
+          targets.getBottom(i));
+    }
+    return isSnapped();
+  }
+
+  /**
+   * Snap the helper to the targets having an edge close enough to an edge of
+   * the helper. The result is the same as {@link #resolve(List)} on all the
+   * targets.
+   *
+   * @return true if the helper snapped on one axis at least
+   */
+  public boolean resolve(SnapEdges edges) {
+    // on each axis, only the last target snapping the helper matters
+    int lastTop = -1;
+    int lastLeft = -1;
+    if (outer) {
+      lastTop = Math.max(edges.lastTopNear(helperBottom, this),
+          edges.lastBottomNear(helperTop, this));
+      lastLeft = Math.max(edges.lastLeftNear(helperRight, this),
+          edges.lastRightNear(helperLeft, this));
+    }
+    if (inner) {
+      lastTop = Math.max(lastTop, Math.max(edges.lastTopNear(helperTop, this),
+          edges.lastBottomNear(helperBottom, this)));
+      lastLeft = Math.max(lastLeft, Math.max(edges.lastLeftNear(helperLeft,
+          this), edges.lastRightNear(helperRight, this)));
+    }
+
+    RectStore targets = edges.getTargets();
+    if (lastTop >= 0) {
+      snapVertically(targets.getTop(lastTop), targets.getBottom(lastTop));
+    }
+    if (lastLeft >= 0) {
+      snapHorizontally(targets.getLeft(lastLeft), targets.getRight(lastLeft));
+    }
+    return isSnapped();
+  }
+
+  /**
+   * Snap the helper to the indexed targets close enough to the helper. The
+   * result is the same as {@link #resolve(List)} on all the targets.
+   *
+   * @return true if the helper snapped on one axis at least
+   */
+  public boolean resolve(SnapIndex index) {
+    // a target in range overlaps the helper grown by the tolerance
+    int count = index.query(helperLeft - tolerance, helperTop - tolerance,
+        helperRight + tolerance, helperBottom + tolerance);
+    RectStore targets = index.getTargets();
+    for (int i = 0; i < count; i++) {
+      int target = index.getCandidateIndex(i);
+      snap(targets.getLeft(target), targets.getTop(target),
+          targets.getRight(target), targets.getBottom(target));
+    }
+    return isSnapped();
+  }
+
+  public void snap(Rect target) {
+    snap(target.getLeft(), target.getTop(), target.getRight(),
+        target.getBottom());
+  }
+
+  /**
+   * Snap the helper to one target.
+   */
+  public void snap(int targetLeft, int targetTop, int targetRight,
+                   int targetBottom) {
+    if (isInRange(targetLeft, targetTop, targetRight, targetBottom)) {
+      snapVertically(targetTop, targetBottom);
+      snapHorizontally(targetLeft, targetRight);
+    }
+  }
+
+  /**
+   * @return true if one of the corners of the helper is closer than the
+   *         tolerance to the target
+   */
+  boolean isInRange(int targetLeft, int targetTop, int targetRight,
+                    int targetBottom) {
+    int minLeft = targetLeft - tolerance;
+    int maxLeft = targetRight + tolerance;
+    int minTop = targetTop - tolerance;
+    int maxTop = targetBottom + tolerance;
+
+    boolean leftIn = minLeft < helperLeft && helperLeft < maxLeft;
+    boolean rightIn = minLeft < helperRight && helperRight < maxLeft;
+    boolean topIn = minTop < helperTop && helperTop < maxTop;
+    boolean bottomIn = minTop < helperBottom && helperBottom < maxTop;
+
+    return (leftIn || rightIn) && (topIn || bottomIn);
+  }
+
+  private void snapHorizontally(int targetLeft, int targetRight) {
+    int width = helperRight - helperLeft;
+
+    if (outer) {
+      if (Math.abs(targetLeft - helperRight) <= tolerance) {
+        snapLeft(targetLeft - width);
+      } else if (Math.abs(targetRight - helperLeft) <= tolerance) {
+        snapLeft(targetRight);
+      }
+    }
+
+    if (inner) {
+      if (Math.abs(targetLeft - helperLeft) <= tolerance) {
+        snapLeft(targetLeft);
+      } else if (Math.abs(targetRight - helperRight) <= tolerance) {
+        snapLeft(targetRight - width);
+      }
+    }
+  }
+
+  private void snapLeft(int value) {
+    left = value;
+    snappedLeft = true;
+  }
+
+  private void snapTop(int value) {
+    top = value;
+    snappedTop = true;
+  }
+
+  private void snapVertically(int targetTop, int targetBottom) {
+    int height = helperBottom - helperTop;
+
+    if (outer) {
+      if (Math.abs(targetTop - helperBottom) <= tolerance) {
+        snapTop(targetTop - height);
+      } else if (Math.abs(targetBottom - helperTop) <= tolerance) {
+        snapTop(targetBottom);
+      }
+    }
+
+    if (inner) {
+      if (Math.abs(targetTop - helperTop) <= tolerance) {
+        snapTop(targetTop);
+      } else if (Math.abs(targetBottom - helperBottom) <= tolerance) {
+        snapTop(targetBottom - height);
+      }
+    }
+  }
+}
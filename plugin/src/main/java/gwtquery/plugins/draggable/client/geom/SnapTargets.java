@@ -0,0 +1,32 @@
+/*
+ * Copyright 2010 The gwtquery plugins team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gwtquery.plugins.draggable.client.geom;
+
+/**
+ * Snap targets prepared at the start of the drag so that a {@link
+ * SnapResolver} doesn't have to test all of them for each mouse move.
+ */
+public interface SnapTargets {
+
+  RectStore getTargets();
+
+  /**
+   * Snap the helper of the resolver to these targets.
+   *
+   * @return true if the helper snapped on one axis at least
+   */
+  boolean snap(SnapResolver resolver);
+}
@@ -44,6 +44,8 @@ import gwtquery.plugins.draggable.client.events.DragStopEvent;
 import gwtquery.plugins.draggable.client.events.DragStopEvent.DragStopEventHandler;
 import gwtquery.plugins.draggable.client.events.DraggableSelectedEvent;
 import gwtquery.plugins.draggable.client.events.DraggableSelectedEvent.DraggableSelectedHandler;
+import gwtquery.plugins.draggable.client.events.DraggableSelectionChangedEvent;
+import gwtquery.plugins.draggable.client.events.DraggableSelectionChangedEvent.DraggableSelectionChangedHandler;
 import gwtquery.plugins.draggable.client.events.DraggableUnselectedEvent;
 import gwtquery.plugins.draggable.client.events.DraggableUnselectedEvent.DraggableUnselectedHandler;
 import gwtquery.plugins.draggable.client.events.HasAllDragHandler;
@@ -157,6 +159,16 @@ public class DraggableWidget<T extends Widget> extends Composite implements
     return addDragHandler(handler, DraggableSelectedEvent.TYPE);
   }
 
+  /**
+   * Add a handler object that will manage the
+   * {@link DraggableSelectionChangedEvent} event. This kind of event is fired
+   * when several draggables are selected or unselected at once.
+   */
+  public HandlerRegistration addDraggableSelectionChangedHandler(
+      DraggableSelectionChangedHandler handler) {
+    return addDragHandler(handler, DraggableSelectionChangedEvent.TYPE);
+  }
+
   /**
    * Add a handler object that will manage the {@link DraggableUnselectedEvent}
    * event. This kind of event is fired when the widget is unselected.
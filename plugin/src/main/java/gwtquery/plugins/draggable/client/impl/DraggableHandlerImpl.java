@@ -30,6 +30,10 @@ import static com.google.gwt.query.client.GQuery.$;
  */
 public class DraggableHandlerImpl {
 
+  // name of the css transform property supported by the browser
+  private static String transformProperty;
+  private static boolean transformPropertyResolved = false;
+
   public boolean resetParentOffsetPosition(GQuery helperOffsetParent) {
     return helperOffsetParent.get(0) == GQuery.body;
   }
@@ -88,6 +92,22 @@ public class DraggableHandlerImpl {
 
   }
 
+  /**
+   * Translate the element with a css 3d transform
+   */
+  public void setTranslate(Element e, int x, int y) {
+    e.getStyle().setProperty(getTransformProperty(),
+        "translate3d(" + x + "px," + y + "px,0)");
+  }
+
+  public void clearTranslate(Element e) {
+    e.getStyle().clearProperty(getTransformProperty());
+  }
+
+  public boolean supportsTransform() {
+    return getTransformProperty() != null;
+  }
+
   public Offset getCssPosition(Element e) {
     int top = 0;
     int left = 0;
@@ -101,6 +121,24 @@ public class DraggableHandlerImpl {
     return new Offset(left, top);
   }
 
+  private static String getTransformProperty() {
+    if (!transformPropertyResolved) {
+      transformProperty = findTransformProperty();
+      transformPropertyResolved = true;
+    }
+    return transformProperty;
+  }
+
+  private static native String findTransformProperty() /*-{
+      var style = $doc.createElement("div").style;
+      var properties = ["transform", "WebkitTransform", "MozTransform"];
+      for (var i = 0; i < properties.length; i++) {
+          if (properties[i] in style) {
+              return properties[i];
+          }
+      }
+      return null;
+  }-*/;
 
 }
 
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2010 The gwtquery plugins team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gwtquery.plugins.draggable.client.plugins;
+
+import com.google.gwt.query.client.plugins.events.GqEvent;
+import gwtquery.plugins.draggable.client.DraggableHandler;
+import gwtquery.plugins.draggable.client.events.DragContext;
+
+/**
+ * Base class of the {@link BatchedDraggablePlugin}. The <code>onStart</code>,
+ * <code>onDrag</code> and <code>onStop</code> methods call the
+ * <code>measure</code> and <code>mutate</code> methods one after the other.
+ */
+public abstract class AbstractBatchedDraggablePlugin implements
+    BatchedDraggablePlugin {
+
+  public void measure(DragPhase phase, DraggableHandler handler,
+                      DragContext ctx, GqEvent e) {
+    // nothing to read by default
+  }
+
+  public void mutate(DragPhase phase, DraggableHandler handler,
+                     DragContext ctx, GqEvent e) {
+    // nothing to write by default
+  }
+
+  public void onDrag(DraggableHandler handler, DragContext ctx, GqEvent e) {
+    measure(DragPhase.DRAG, handler, ctx, e);
+    mutate(DragPhase.DRAG, handler, ctx, e);
+  }
+
+  public void onStart(DraggableHandler handler, DragContext ctx, GqEvent e) {
+    measure(DragPhase.START, handler, ctx, e);
+    mutate(DragPhase.START, handler, ctx, e);
+  }
+
+  public void onStop(DraggableHandler handler, DragContext ctx, GqEvent e) {
+    measure(DragPhase.STOP, handler, ctx, e);
+    mutate(DragPhase.STOP, handler, ctx, e);
+  }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2010 The gwtquery plugins team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gwtquery.plugins.draggable.client.plugins;
+
+import com.google.gwt.query.client.plugins.events.GqEvent;
+import gwtquery.plugins.draggable.client.DraggableHandler;
+import gwtquery.plugins.draggable.client.events.DragContext;
+
+/**
+ * A {@link DraggablePlugin} separating the DOM reads from the DOM writes. For
+ * each phase, the <code>measure</code> method of the plugins is called for all
+ * the selected draggables before the <code>mutate</code> method is called for
+ * any of them. That avoids forcing the browser to compute the layout again
+ * between two reads.
+ * <p/>
+ * The <code>measure</code> method must not modify the DOM. The
+ * <code>mutate</code> method should only use the values read by the
+ * <code>measure</code> method.
+ */
+public interface BatchedDraggablePlugin extends PhasedDraggablePlugin {
+
+  /**
+   * Read the DOM needed by the plugin during the <code>phase</code>.
+   */
+  void measure(DragPhase phase, DraggableHandler handler, DragContext ctx,
+               GqEvent e);
+
+  /**
+   * Modify the DOM during the <code>phase</code>.
+   */
+  void mutate(DragPhase phase, DraggableHandler handler, DragContext ctx,
+              GqEvent e);
+}
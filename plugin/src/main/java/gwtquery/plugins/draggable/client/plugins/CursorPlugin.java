@@ -29,7 +29,7 @@ import static com.google.gwt.query.client.GQuery.body;
  *
  * @author Julien Dramaix (julien.dramaix@gmail.com, @jdramaix)
  */
-public class CursorPlugin implements DraggablePlugin {
+public class CursorPlugin extends AbstractBatchedDraggablePlugin {
 
   private static String OLD_CURSOR_KEY = "oldCursor";
   private static String CURSOR_CSS = "cursor";
@@ -43,33 +43,39 @@ public class CursorPlugin implements DraggablePlugin {
     return options.getCursor() != null;
   }
 
-  public void onDrag(DraggableHandler handler, DragContext ctx, GqEvent e) {
-    // nothing to do
+  public boolean implementsPhase(DragPhase phase) {
+    return phase != DragPhase.DRAG;
   }
 
-  public void onStart(DraggableHandler handler, DragContext ctx,
-                      GqEvent e) {
-
-    if (ctx.getInitialDraggable() == ctx.getDraggable() && !isStarting) {
-      isStarting = true;
+  @Override
+  public void measure(DragPhase phase, DraggableHandler handler,
+                      DragContext ctx, GqEvent e) {
+    if (phase == DragPhase.START
+        && ctx.getInitialDraggable() == ctx.getDraggable() && !isStarting) {
       GQuery $body = $(body);
       String oldCursor = $body.css(CURSOR_CSS);
       if (oldCursor != null) {
         $body.data(OLD_CURSOR_KEY, oldCursor);
       }
-      $body.css(CURSOR_CSS, handler.getOptions().getCursor().getCssName());
     }
-
   }
 
-  public void onStop(DraggableHandler handler, DragContext ctx, GqEvent e) {
+  @Override
+  public void mutate(DragPhase phase, DraggableHandler handler,
+                     DragContext ctx, GqEvent e) {
     if (ctx.getInitialDraggable() != ctx.getDraggable()) {
       return;
     }
-    GQuery $body = $(body);
-    String oldCursor = $body.data(OLD_CURSOR_KEY, String.class);
-    $body.css(CURSOR_CSS, oldCursor);
-    isStarting = false;
+
+    if (phase == DragPhase.START && !isStarting) {
+      isStarting = true;
+      $(body).css(CURSOR_CSS, handler.getOptions().getCursor().getCssName());
+    } else if (phase == DragPhase.STOP) {
+      GQuery $body = $(body);
+      String oldCursor = $body.data(OLD_CURSOR_KEY, String.class);
+      $body.css(CURSOR_CSS, oldCursor);
+      isStarting = false;
+    }
   }
 
 }
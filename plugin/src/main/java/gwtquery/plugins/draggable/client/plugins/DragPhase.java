@@ -0,0 +1,37 @@
+/*
+ * Copyright 2010 The gwtquery plugins team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gwtquery.plugins.draggable.client.plugins;
+
+/**
+ * The different phases of a drag operation in which a {@link DraggablePlugin}
+ * can be called.
+ */
+public enum DragPhase {
+  /**
+   * The drag operation starts
+   */
+  START,
+
+  /**
+   * The helper is being dragged
+   */
+  DRAG,
+
+  /**
+   * The drag operation stops
+   */
+  STOP;
+}
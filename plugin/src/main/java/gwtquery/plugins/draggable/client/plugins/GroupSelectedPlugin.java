@@ -16,42 +16,44 @@
 package gwtquery.plugins.draggable.client.plugins;
 
 import com.google.gwt.dom.client.Element;
-import com.google.gwt.query.client.GQuery;
 import com.google.gwt.query.client.GQuery.Offset;
+import com.google.gwt.query.client.plugins.UiPlugin.Dimension;
 import com.google.gwt.query.client.plugins.events.GqEvent;
 import gwtquery.plugins.draggable.client.DraggableHandler;
 import gwtquery.plugins.draggable.client.DraggableOptions;
 import gwtquery.plugins.draggable.client.DraggableOptions.GroupingMode;
 import gwtquery.plugins.draggable.client.events.DragContext;
+import gwtquery.plugins.draggable.client.geom.GroupLayout;
+import gwtquery.plugins.draggable.client.geom.GroupLayout.Direction;
 
-import static com.google.gwt.query.client.GQuery.$;
+import java.util.List;
 
 /**
  * Plugin used when multi-draggable is on to group helper together.
  *
  * @author Julien Dramaix (julien.dramaix@gmail.com, @jdramaix)
  */
-public class GroupSelectedPlugin implements DraggablePlugin {
+public class GroupSelectedPlugin extends AbstractBatchedDraggablePlugin {
 
-  private static class HelperInfo {
-    private int height;
-
-    private Offset offset;
-    private int width;
-
-    public HelperInfo(Offset offset, GQuery helper) {
-      this.offset = offset;
-      this.height = helper.outerHeight();
-      this.width = helper.outerWidth();
+  private static Direction getDirection(GroupingMode groupingMode) {
+    switch (groupingMode) {
+      case DOWN:
+        return Direction.DOWN;
+      case FAN:
+        return Direction.FAN;
+      case GRID:
+        return Direction.GRID;
+      case UP:
+        return Direction.UP;
+      case LEFT:
+        return Direction.LEFT;
+      case RIGHT:
+        return Direction.RIGHT;
+      default:
+        return null;
     }
-
   }
 
-  private static String LAST_DOWN = "__GroupPluginLastDown";
-  private static String LAST_LEFT = "__GroupPluginLastLeft";
-  private static String LAST_RIGHT = "__GroupPluginLastRight";
-  private static String LAST_UP = "__GroupPluginLastUp";
-
   public String getName() {
     return "GroupSelectedPlugin";
   }
@@ -60,103 +62,74 @@ public class GroupSelectedPlugin implements DraggablePlugin {
     return options.getGroupingMode() != null;
   }
 
-  public void onDrag(DraggableHandler handler, DragContext ctx, GqEvent e) {
+  public boolean implementsPhase(DragPhase phase) {
+    return phase == DragPhase.START;
   }
 
-  public void onStart(DraggableHandler handler, DragContext ctx, GqEvent e) {
-
+  /**
+   * The whole group is placed when the initial draggable is measured, from
+   * the helper sizes cached by the handlers when the drag started. Only the
+   * offset click of the handlers is modified, not the DOM. The followers moved
+   * by delta in the DELTA and COMPOSITE multi-drag modes are shifted by their
+   * follow offset instead.
+   */
+  @Override
+  public void measure(DragPhase phase, DraggableHandler handler,
+                      DragContext ctx, GqEvent e) {
     Element initialDraggable = ctx.getInitialDraggable();
 
-    if (initialDraggable == ctx.getDraggable()) {
+    if (initialDraggable != ctx.getDraggable()) {
       return;
     }
 
-    DraggableHandler initialDragHandler = DraggableHandler
-        .getInstance(initialDraggable);
-    GQuery $initialDraggable = $(initialDraggable);
-
-    GroupingMode groupingMode = handler.getOptions().getGroupingMode();
-    int groupSpacing = handler.getOptions().getGroupSpacing();
-
-    Offset newPosition = null;
-
-    switch (groupingMode) {
-      case DOWN:
-        HelperInfo lastDown = $initialDraggable.data(LAST_DOWN, HelperInfo.class);
-        if (lastDown == null) {
-          lastDown = new HelperInfo(initialDragHandler.getAbsolutePosition(),
-              initialDragHandler.getHelper());
-        }
-
-        newPosition = lastDown.offset.add(0, lastDown.height + groupSpacing);
-        HelperInfo newLastDown = new HelperInfo(newPosition, handler.getHelper());
-        $initialDraggable.data(LAST_DOWN, newLastDown);
-
-        break;
-
-      case UP:
-        HelperInfo lastUp = $initialDraggable.data(LAST_UP, HelperInfo.class);
-        if (lastUp == null) {
-          lastUp = new HelperInfo(initialDragHandler.getAbsolutePosition(),
-              initialDragHandler.getHelper());
-        }
-
-        newPosition = lastUp.offset.add(0, -handler.getHelperDimension()
-            .getHeight()
-            - groupSpacing);
-        HelperInfo newLastUp = new HelperInfo(newPosition, handler.getHelper());
-        $initialDraggable.data(LAST_UP, newLastUp);
-        break;
-      case LEFT:
-        HelperInfo lastLeft = $initialDraggable.data(LAST_LEFT, HelperInfo.class);
-        if (lastLeft == null) {
-          lastLeft = new HelperInfo(initialDragHandler.getAbsolutePosition(),
-              initialDragHandler.getHelper());
-        }
-
-        newPosition = lastLeft.offset.add(-handler.getHelperDimension()
-            .getWidth()
-            - groupSpacing, 0);
-        HelperInfo newLastLeft = new HelperInfo(newPosition, handler.getHelper());
-        $initialDraggable.data(LAST_LEFT, newLastLeft);
-
-        break;
-
-      case RIGHT:
-        HelperInfo lastRight = $initialDraggable.data(LAST_RIGHT,
-            HelperInfo.class);
-        if (lastRight == null) {
-          lastRight = new HelperInfo(initialDragHandler.getAbsolutePosition(),
-              initialDragHandler.getHelper());
-        }
-
-        newPosition = lastRight.offset.add(lastRight.width + groupSpacing, 0);
-        HelperInfo newLastRight = new HelperInfo(newPosition, handler.getHelper());
-        $initialDraggable.data(LAST_RIGHT, newLastRight);
-
-        break;
-
-      default:
-        break;
+    Direction direction = getDirection(handler.getOptions().getGroupingMode());
+    if (direction == null) {
+      return;
     }
 
-    if (newPosition != null) {
-
-      Offset actualPosition = handler.getAbsolutePosition();
-      Offset clickOffset = handler.getOffsetClick();
-      Offset newClickOffset = clickOffset.add(actualPosition.left
-          - newPosition.left, actualPosition.top - newPosition.top);
-      handler.setOffsetClick(newClickOffset);
+    List<Element> selectedDraggables = ctx.getSelectedDraggables();
+    int size = selectedDraggables.size();
+    DraggableHandler[] followers = new DraggableHandler[size];
+    int[] widths = new int[size];
+    int[] heights = new int[size];
+    int count = 0;
+
+    for (int i = 0; i < size; i++) {
+      Element draggable = selectedDraggables.get(i);
+      DraggableHandler follower = DraggableHandler.getInstance(draggable);
+      // the drag operation may have been stopped for this draggable
+      if (draggable == initialDraggable || follower == null
+          || follower.getDragContext() == null) {
+        continue;
+      }
+      Dimension dimension = follower.getHelperDimension();
+      followers[count] = follower;
+      widths[count] = dimension.getWidth();
+      heights[count] = dimension.getHeight();
+      count++;
     }
 
-  }
-
-  public void onStop(DraggableHandler handler, DragContext ctx, GqEvent e) {
-    Element initialDraggable = ctx.getInitialDraggable();
+    if (count == 0) {
+      return;
+    }
 
-    if (initialDraggable == ctx.getDraggable()) {
-      $(initialDraggable).removeData(LAST_DOWN).removeData(LAST_LEFT)
-          .removeData(LAST_RIGHT).removeData(LAST_UP);
+    Offset initialPosition = handler.getAbsolutePosition();
+    Dimension initialDimension = handler.getHelperDimension();
+    int[] lefts = new int[count];
+    int[] tops = new int[count];
+    new GroupLayout(direction, handler.getOptions().getGroupSpacing(),
+        initialPosition.left, initialPosition.top, initialDimension.getWidth(),
+        initialDimension.getHeight()).placeAll(count, widths, heights, lefts,
+        tops);
+
+    for (int i = 0; i < count; i++) {
+      DraggableHandler follower = followers[i];
+      Offset actualPosition = follower.getAbsolutePosition();
+      Offset clickOffset = follower.getOffsetClick();
+      follower.setOffsetClick(clickOffset.add(actualPosition.left - lefts[i],
+          actualPosition.top - tops[i]));
+      follower.setFollowOffset(lefts[i] - actualPosition.left, tops[i]
+          - actualPosition.top);
     }
   }
 
@@ -29,7 +29,7 @@ import static com.google.gwt.query.client.GQuery.$;
  *
  * @author Julien Dramaix (julien.dramaix@gmail.com, @jdramaix)
  */
-public class OpacityPlugin implements DraggablePlugin {
+public class OpacityPlugin extends AbstractBatchedDraggablePlugin {
 
   private static String OLD_OPACITY_KEY = "oldOpacity";
   private static String OPACITY_CSS_KEY = "opacity";
@@ -43,24 +43,34 @@ public class OpacityPlugin implements DraggablePlugin {
     return opacity != null && opacity.floatValue() >= 0;
   }
 
-  public void onDrag(DraggableHandler handler, DragContext ctx, GqEvent e) {
-    // do nothing
+  public boolean implementsPhase(DragPhase phase) {
+    return phase != DragPhase.DRAG;
   }
 
-  public void onStart(DraggableHandler handler, DragContext ctx,
-                      GqEvent e) {
-    Float opacity = handler.getOptions().getOpacity();
-
+  @Override
+  public void measure(DragPhase phase, DraggableHandler handler,
+                      DragContext ctx, GqEvent e) {
+    if (phase != DragPhase.START) {
+      return;
+    }
     GQuery $helper = handler.getHelper();
 
     double oldOpacity = $helper.cur(OPACITY_CSS_KEY, true);
     $helper.data(OLD_OPACITY_KEY, new Double(oldOpacity));
+  }
 
-    $helper.css(OPACITY_CSS_KEY, opacity.toString());
-
+  @Override
+  public void mutate(DragPhase phase, DraggableHandler handler,
+                     DragContext ctx, GqEvent e) {
+    if (phase == DragPhase.START) {
+      Float opacity = handler.getOptions().getOpacity();
+      handler.getHelper().css(OPACITY_CSS_KEY, opacity.toString());
+    } else if (phase == DragPhase.STOP) {
+      restoreOpacity(handler, ctx);
+    }
   }
 
-  public void onStop(DraggableHandler handler, DragContext ctx, GqEvent e) {
+  private void restoreOpacity(DraggableHandler handler, DragContext ctx) {
     GQuery $element = (handler.getOptions().getHelperType() == HelperType.ORIGINAL) ? handler.getHelper() : $(ctx.getDraggable());
     if ($element == null || $element.length() == 0) {
       return;
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2010 The gwtquery plugins team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gwtquery.plugins.draggable.client.plugins;
+
+/**
+ * A {@link DraggablePlugin} declaring the phases of the drag operation it
+ * really implements. The plugin is not called during the other phases, this
+ * keeps the no-op <code>onDrag</code> methods out of the mouse move handling.
+ * <p/>
+ * A plugin implementing only {@link DraggablePlugin} is called during all the
+ * phases.
+ */
+public interface PhasedDraggablePlugin extends DraggablePlugin {
+
+  /**
+   * @return true if the plugin has to be called during the <code>phase</code>
+   */
+  boolean implementsPhase(DragPhase phase);
+}
@@ -15,28 +15,205 @@
  */
 package gwtquery.plugins.draggable.client.plugins;
 
+import com.google.gwt.animation.client.AnimationScheduler;
+import com.google.gwt.animation.client.AnimationScheduler.AnimationCallback;
+import com.google.gwt.animation.client.AnimationScheduler.AnimationHandle;
 import com.google.gwt.dom.client.Element;
+import com.google.gwt.query.client.Function;
 import com.google.gwt.query.client.GQuery;
 import com.google.gwt.query.client.GQuery.Offset;
+import com.google.gwt.query.client.plugins.UiPlugin;
 import com.google.gwt.query.client.plugins.events.GqEvent;
 import com.google.gwt.user.client.Window;
 import gwtquery.plugins.draggable.client.DragAndDropManager;
+import gwtquery.plugins.draggable.client.DragFrame;
+import gwtquery.plugins.draggable.client.DragStateKey;
+import gwtquery.plugins.draggable.client.Draggable;
 import gwtquery.plugins.draggable.client.DraggableHandler;
 import gwtquery.plugins.draggable.client.DraggableOptions;
 import gwtquery.plugins.draggable.client.DraggableOptions.AxisOption;
 import gwtquery.plugins.draggable.client.events.DragContext;
+import gwtquery.plugins.draggable.client.geom.DragMath;
+
+import java.util.ArrayList;
+import java.util.List;
 
 import static com.google.gwt.query.client.GQuery.$;
 import static com.google.gwt.query.client.GQuery.document;
 
 /**
  * This add-on handle scrolling of parent element.
+ * <p/>
+ * The scroll is driven by the animation frames while the mouse pointer stays
+ * within the scrollSensitivity distance of an edge, even if the mouse doesn't
+ * move. The speed depends on the elapsed time and grows as the pointer gets
+ * closer to the edge, up to the scrollSpeed per frame.
+ * <p/>
+ * All the scrollable ancestors of the helper and the document can scroll.
+ * The innermost one whose edge is close to the pointer drives the scroll;
+ * when it cannot scroll further, its scrollable ancestors take over.
  *
  * @author Julien Dramaix (julien.dramaix@gmail.com, @jdramaix)
  */
-public class ScrollPlugin implements DraggablePlugin {
+public class ScrollPlugin extends AbstractBatchedDraggablePlugin {
+
+  /**
+   * A scrollable ancestor of the helper, or the document. Its geometry is
+   * measured at the start of the drag and refreshed only when it scrolls.
+   */
+  private static class ScrollContainer {
+    // null for the document
+    private final Element element;
+    private final Function scrollListener;
+    private boolean scrolled;
+
+    // page coordinates of an element, viewport coordinates for the document
+    private int left;
+    private int top;
+    private int right;
+    private int bottom;
+
+    private int scrollLeft;
+    private int scrollTop;
+    private int maxScrollLeft;
+    private int maxScrollTop;
+    // scroll to apply during the current frame
+    private int deltaLeft;
+    private int deltaTop;
+
+    private ScrollContainer(Element element) {
+      this.element = element;
+      this.scrollListener = new Function() {
+        @Override
+        public void f() {
+          scrolled = true;
+        }
+      };
+    }
+
+    private GQuery getScrollTarget() {
+      return element != null ? $(element) : $(GQuery.window);
+    }
+
+    private void measureBounds() {
+      if (element != null) {
+        Offset offset = $(element).offset();
+        left = offset.left;
+        top = offset.top;
+        right = left + element.getOffsetWidth();
+        bottom = top + element.getOffsetHeight();
+      } else {
+        left = 0;
+        top = 0;
+        right = Window.getClientWidth();
+        bottom = Window.getClientHeight();
+      }
+    }
+
+    private void measureScroll() {
+      if (element != null) {
+        scrollLeft = element.getScrollLeft();
+        scrollTop = element.getScrollTop();
+        maxScrollLeft = element.getScrollWidth() - element.getClientWidth();
+        maxScrollTop = element.getScrollHeight() - element.getClientHeight();
+      } else {
+        scrollLeft = document.getScrollLeft();
+        scrollTop = document.getScrollTop();
+        maxScrollLeft = document.getScrollWidth() - Window.getClientWidth();
+        maxScrollTop = document.getScrollHeight() - Window.getClientHeight();
+      }
+    }
 
-  private static String OVERFLOW_OFFSET_KEY = "overflowOffset";
+    private void move(int deltaLeft, int deltaTop) {
+      left += deltaLeft;
+      top += deltaTop;
+      right += deltaLeft;
+      bottom += deltaTop;
+    }
+
+    private void scroll() {
+      if (deltaLeft != 0) {
+        scrollLeft += deltaLeft;
+        if (element != null) {
+          element.setScrollLeft(scrollLeft);
+        } else {
+          document.setScrollLeft(scrollLeft);
+        }
+      }
+      if (deltaTop != 0) {
+        scrollTop += deltaTop;
+        if (element != null) {
+          element.setScrollTop(scrollTop);
+        } else {
+          document.setScrollTop(scrollTop);
+        }
+      }
+    }
+  }
+
+  /**
+   * Scroll state of one draggable, updated by each animation frame.
+   */
+  private static class ScrollState {
+    private DraggableHandler handler;
+    private DragContext ctx;
+    // last mouse event, the coordinates of the pointer are read from it
+    private GqEvent event;
+    private boolean scrolling;
+    private boolean scrolled;
+
+    // from the innermost scrollable ancestor to the document
+    private ScrollContainer[] containers;
+    // fractions of pixel not scrolled yet
+    private double pendingLeft;
+    private double pendingTop;
+  }
+
+  private static final DragStateKey<ScrollState> SCROLL_STATE_KEY =
+      new DragStateKey<ScrollState>("scrollState");
+
+  // duration of a frame at 60 frames per second, in ms
+  private static final double FRAME_DURATION = 1000d / 60;
+  // longer frames, like after a tab switch, don't scroll further
+  private static final double MAX_FRAME_DURATION = 100;
+
+  /**
+   * Return the speed, in pixels per ms, for a pointer at the given distances
+   * from the start and the end edges of an axis. The speed is proportional to
+   * the depth of the pointer in the sensitivity zone.
+   */
+  private static double getSpeed(int distanceToStart, int distanceToEnd,
+                                 int sensitivity, int scrollSpeed) {
+    double maxSpeed = scrollSpeed / FRAME_DURATION;
+    if (distanceToEnd < sensitivity) {
+      return maxSpeed * getDepth(distanceToEnd, sensitivity);
+    } else if (distanceToStart < sensitivity) {
+      return -maxSpeed * getDepth(distanceToStart, sensitivity);
+    }
+    return 0;
+  }
+
+  private static double getDepth(int distance, int sensitivity) {
+    return Math.min(1, (sensitivity - distance) / (double) sensitivity);
+  }
+
+  private static boolean isDocument(Element element) {
+    return element == null || element == $(GQuery.document).get(0)
+        || "html".equalsIgnoreCase(element.getTagName());
+  }
+
+  // draggables scrolling their parents, all updated in the same frame
+  private final List<ScrollState> scrollingStates = new ArrayList<ScrollState>();
+  private AnimationHandle scrollFrame;
+  private double lastFrameTime;
+
+  private final AnimationCallback scrollFrameCallback =
+      new AnimationCallback() {
+        public void execute(double timestamp) {
+          scrollFrame = null;
+          scrollFrame(timestamp);
+        }
+      };
 
   public String getName() {
     return "scroll";
@@ -46,103 +223,338 @@ public class ScrollPlugin implements DraggablePlugin {
     return options.isScroll();
   }
 
-  public void onDrag(DraggableHandler handler, DragContext ctx, GqEvent e) {
-    DraggableOptions options = handler.getOptions();
-    Element draggableElement = ctx.getDraggable();
-    GQuery scrollParent = handler.getHelperScrollParent();
-    Element scrollParentElement = scrollParent.get(0);
-    if (scrollParentElement == null) {
-      return;
+  public boolean implementsPhase(DragPhase phase) {
+    return true;
+  }
+
+  /**
+   * Stop the autoscroll of the draggable. Called when the mouse is released,
+   * before the helper is reverted, so that the scroll doesn't go on during
+   * the revert animation.
+   */
+  public void stopScroll(DraggableHandler handler) {
+    ScrollState state = handler.getDragState(SCROLL_STATE_KEY);
+    if (state != null && state.scrolling) {
+      stopScroll(state);
     }
+  }
+
+  @Override
+  public void measure(DragPhase phase, DraggableHandler handler,
+                      DragContext ctx, GqEvent e) {
+    if (phase == DragPhase.START) {
+      // the selection is moved with the initial draggable
+      if (ctx.getDraggable() == ctx.getInitialDraggable()) {
+        measureScrollContainers(handler, ctx);
+      }
+    } else if (phase == DragPhase.DRAG) {
+      startScroll(handler, e);
+    }
+  }
+
+  @Override
+  public void mutate(DragPhase phase, DraggableHandler handler,
+                     DragContext ctx, GqEvent e) {
+    if (phase == DragPhase.START) {
+      ScrollState state = handler.getDragState(SCROLL_STATE_KEY);
+      if (state == null) {
+        return;
+      }
+      for (ScrollContainer container : state.containers) {
+        container.getScrollTarget().bind("scroll", container.scrollListener);
+      }
+    } else if (phase == DragPhase.STOP) {
+      ScrollState state = handler.removeDragState(SCROLL_STATE_KEY);
+      if (state == null) {
+        return;
+      }
+      for (ScrollContainer container : state.containers) {
+        container.getScrollTarget().unbind("scroll", container.scrollListener);
+      }
+      if (state.scrolling) {
+        stopScroll(state);
+      }
+    }
+  }
+
+  /**
+   * Find the container scrolled on one axis: the first container, from the
+   * innermost one having the pointer close to its edge, that can still scroll
+   * in the direction of the speed.
+   *
+   * @return the index of the container, -1 if none
+   */
+  private int findScrolledContainer(ScrollContainer[] containers, int from,
+                                    double speed, boolean vertical) {
+    for (int i = from; i < containers.length; i++) {
+      ScrollContainer container = containers[i];
+      int scroll = vertical ? container.scrollTop : container.scrollLeft;
+      int maxScroll = vertical ? container.maxScrollTop
+          : container.maxScrollLeft;
+      if (speed > 0 ? scroll < maxScroll : scroll > 0) {
+        return i;
+      }
+    }
+    return -1;
+  }
 
+  private void measureScroll(ScrollState state, double elapsed) {
+    DraggableOptions options = state.handler.getOptions();
     AxisOption axis = options.getAxis();
-    Offset overflowOffset = $(draggableElement).data(OVERFLOW_OFFSET_KEY,
-        Offset.class);
     int scrollSensitivity = options.getScrollSensitivity();
     int scrollSpeed = options.getScrollSpeed();
+    GqEvent e = state.event;
+    ScrollContainer[] containers = state.containers;
 
-    boolean scrolled = false;
-
-    if (scrollParentElement != null
-        && scrollParentElement != $(GQuery.document).get(0)
-        && !"html".equalsIgnoreCase(scrollParentElement.getTagName())) {
-      if (AxisOption.NONE == axis || AxisOption.Y_AXIS == axis) {
-        // test if we have to scroll down...
-        if ((overflowOffset.top + scrollParentElement.getOffsetHeight())
-            - e.pageY() < scrollSensitivity) {
-          scrollParentElement.setScrollTop(scrollParentElement.getScrollTop()
-              + scrollSpeed);
-          scrolled = true;
-          // test if we have to scroll up...
-        } else if (e.pageY() - overflowOffset.top < scrollSensitivity) {
-          scrollParentElement.setScrollTop(scrollParentElement.getScrollTop()
-              - scrollSpeed);
-          scrolled = true;
+    refreshScrollContainers(containers);
+
+    double speedLeft = 0;
+    double speedTop = 0;
+    int leftContainer = -1;
+    int topContainer = -1;
+
+    for (int i = 0; i < containers.length && (speedLeft == 0
+        || speedTop == 0); i++) {
+      ScrollContainer container = containers[i];
+      // the document is measured in the viewport
+      int pointerX = container.element != null ? e.pageX() : e.getClientX();
+      int pointerY = container.element != null ? e.pageY() : e.getClientY();
+
+      if (speedTop == 0
+          && (AxisOption.NONE == axis || AxisOption.Y_AXIS == axis)) {
+        speedTop = getSpeed(pointerY - container.top, container.bottom
+            - pointerY, scrollSensitivity, scrollSpeed);
+        if (speedTop != 0) {
+          topContainer = findScrolledContainer(containers, i, speedTop, true);
         }
       }
-
-      if (AxisOption.NONE == axis || AxisOption.X_AXIS == axis) {
-        // test if we have to scroll left...
-        if ((overflowOffset.left + scrollParentElement.getOffsetWidth())
-            - e.pageX() < scrollSensitivity) {
-          scrollParentElement.setScrollLeft(scrollParentElement.getScrollLeft()
-              + scrollSpeed);
-          scrolled = true;
-          // test if we have to scroll right...
-        } else if (e.pageX() - overflowOffset.left < scrollSensitivity) {
-          scrollParentElement.setScrollLeft(scrollParentElement.getScrollLeft()
-              - scrollSpeed);
-          scrolled = true;
+      if (speedLeft == 0
+          && (AxisOption.NONE == axis || AxisOption.X_AXIS == axis)) {
+        speedLeft = getSpeed(pointerX - container.left, container.right
+            - pointerX, scrollSensitivity, scrollSpeed);
+        if (speedLeft != 0) {
+          leftContainer = findScrolledContainer(containers, i, speedLeft,
+              false);
         }
       }
+    }
 
-    } else {
-      if (AxisOption.NONE == axis || AxisOption.Y_AXIS == axis) {
-        if (e.pageY() - document.getScrollTop() < scrollSensitivity) {
-          document.setScrollTop(document.getScrollTop() - scrollSpeed);
-          scrolled = true;
-        } else if (Window.getClientHeight()
-            - (e.pageY() - document.getScrollTop()) < scrollSensitivity) {
-          document.setScrollTop(document.getScrollTop() + scrollSpeed);
-          scrolled = true;
-        }
+    state.pendingTop = topContainer < 0 ? 0 : state.pendingTop + speedTop
+        * elapsed;
+    state.pendingLeft = leftContainer < 0 ? 0 : state.pendingLeft + speedLeft
+        * elapsed;
+    int stepTop = (int) state.pendingTop;
+    int stepLeft = (int) state.pendingLeft;
+    state.pendingTop -= stepTop;
+    state.pendingLeft -= stepLeft;
+
+    if (stepTop != 0) {
+      ScrollContainer container = containers[topContainer];
+      container.deltaTop = DragMath.clamp(container.scrollTop + stepTop, 0,
+          container.maxScrollTop) - container.scrollTop;
+      state.scrolled |= container.deltaTop != 0;
+    }
+    if (stepLeft != 0) {
+      ScrollContainer container = containers[leftContainer];
+      container.deltaLeft = DragMath.clamp(container.scrollLeft + stepLeft, 0,
+          container.maxScrollLeft) - container.scrollLeft;
+      state.scrolled |= container.deltaLeft != 0;
+    }
+
+    // the scroll goes on while the pointer stays in a sensitivity zone
+    state.scrolling = speedTop != 0 || speedLeft != 0;
+  }
+
+  private void measureScrollContainers(DraggableHandler handler,
+                                       DragContext ctx) {
+    ScrollState state = new ScrollState();
+    state.handler = handler;
+    state.ctx = ctx;
+
+    List<ScrollContainer> containers = new ArrayList<ScrollContainer>();
+    Element element = handler.getHelperScrollParent().get(0);
+    while (!isDocument(element)) {
+      containers.add(new ScrollContainer(element));
+      Element parent = $(element).as(UiPlugin.GQueryUi).scrollParent().get(0);
+      element = parent != element ? parent : null;
+    }
+    containers.add(new ScrollContainer(null));
+
+    state.containers = containers.toArray(new ScrollContainer[containers
+        .size()]);
+    for (ScrollContainer container : state.containers) {
+      container.measureBounds();
+      container.measureScroll();
+    }
+    handler.setDragState(SCROLL_STATE_KEY, state);
+  }
+
+  /**
+   * Measure again the containers that scrolled since the last frame, and the
+   * bounds of the containers they contain. Our own scrolls are already taken
+   * into account.
+   */
+  private void refreshScrollContainers(ScrollContainer[] containers) {
+    boolean ancestorScrolled = false;
+    for (int i = containers.length - 1; i >= 0; i--) {
+      ScrollContainer container = containers[i];
+      if (ancestorScrolled) {
+        container.measureBounds();
+      }
+      if (container.scrolled) {
+        container.scrolled = false;
+        int scrollLeft = container.scrollLeft;
+        int scrollTop = container.scrollTop;
+        container.measureScroll();
+        // the scroll of the document doesn't move the elements in the page
+        ancestorScrolled |= container.element != null
+            && (scrollLeft != container.scrollLeft
+            || scrollTop != container.scrollTop);
       }
+    }
+  }
 
-      if (AxisOption.NONE == axis || AxisOption.X_AXIS == axis) {
-        if (e.pageX() - document.getScrollLeft() < scrollSensitivity) {
-          document.setScrollLeft(document.getScrollLeft() - scrollSpeed);
-          scrolled = true;
-        } else if (Window.getClientWidth()
-            - (e.pageX() - document.getScrollLeft()) < scrollSensitivity) {
-          document.setScrollLeft(document.getScrollLeft() + scrollSpeed);
-          scrolled = true;
+  /**
+   * Scroll the containers of one draggable and update the bounds of the
+   * containers inside them.
+   */
+  private void scroll(ScrollState state) {
+    ScrollContainer[] containers = state.containers;
+    for (int i = 0; i < containers.length; i++) {
+      ScrollContainer container = containers[i];
+      if (container.deltaLeft == 0 && container.deltaTop == 0) {
+        continue;
+      }
+      container.scroll();
+      if (container.element != null) {
+        for (int j = 0; j < i; j++) {
+          containers[j].move(-container.deltaLeft, -container.deltaTop);
         }
       }
+    }
+  }
+
+  /**
+   * Scroll the containers of all the scrolling draggables, then move their
+   * helpers. All the scroll values are read before the first write.
+   */
+  private void scrollFrame(double timestamp) {
+    double elapsed = lastFrameTime > 0 ? Math.min(timestamp - lastFrameTime,
+        MAX_FRAME_DURATION) : FRAME_DURATION;
+    lastFrameTime = timestamp;
+
+    for (int i = 0; i < scrollingStates.size(); i++) {
+      measureScroll(scrollingStates.get(i), elapsed);
+    }
 
+    for (int i = 0; i < scrollingStates.size(); i++) {
+      ScrollState state = scrollingStates.get(i);
+      if (state.scrolled) {
+        scroll(state);
+      }
     }
 
-    if (scrolled && DragAndDropManager.getInstance().isHandleDroppable(ctx)) {
-      DragAndDropManager.getInstance().initialize(ctx, e);
+    DragAndDropManager dragAndDropManager = DragAndDropManager.getInstance();
+    for (int i = scrollingStates.size() - 1; i >= 0; i--) {
+      ScrollState state = scrollingStates.get(i);
+      if (state.scrolled) {
+        updateHelper(state, dragAndDropManager);
+      }
+      if (!state.scrolling) {
+        stopScroll(state);
+      }
     }
 
+    if (!scrollingStates.isEmpty()) {
+      scrollFrame = AnimationScheduler.get().requestAnimationFrame(
+          scrollFrameCallback);
+    }
   }
 
-  public void onStart(DraggableHandler handler, DragContext ctx,
-                      GqEvent e) {
+  /**
+   * Start the scroll of the containers of the draggable if the pointer is in
+   * a sensitivity zone.
+   */
+  private void startScroll(DraggableHandler handler, GqEvent e) {
+    ScrollState state = handler.getDragState(SCROLL_STATE_KEY);
+    if (state == null) {
+      return;
+    }
 
-    GQuery scrollParent = handler.getHelperScrollParent();
-    Element scrollParentElement = scrollParent.get(0);
-    if (scrollParentElement != null
-        && scrollParentElement != $(GQuery.document).get(0)
-        && !"html".equalsIgnoreCase(scrollParentElement.getTagName())) {
-      Offset scrollParentOffset = scrollParent.offset();
-      $(ctx.getDraggable()).data(OVERFLOW_OFFSET_KEY, scrollParentOffset);
+    state.event = e;
+    if (state.scrolling) {
+      return;
+    }
+
+    // only the speed is needed here, the scroll is done by the frame
+    measureScroll(state, 0);
+    if (state.scrolling) {
+      scrollingStates.add(state);
+      if (scrollFrame == null) {
+        lastFrameTime = 0;
+        scrollFrame = AnimationScheduler.get().requestAnimationFrame(
+            scrollFrameCallback);
+      }
     }
   }
 
-  public void onStop(DraggableHandler handler, DragContext ctx, GqEvent e) {
-    $(ctx.getDraggable()).removeData(OVERFLOW_OFFSET_KEY);
+  private void stopScroll(ScrollState state) {
+    state.scrolling = false;
+    state.pendingLeft = 0;
+    state.pendingTop = 0;
+    scrollingStates.remove(state);
+    if (scrollingStates.isEmpty() && scrollFrame != null) {
+      scrollFrame.cancel();
+      scrollFrame = null;
+    }
+  }
+
+  /**
+   * The pointer doesn't move on the screen but the page scrolled under it:
+   * move the droppables by the scroll deltas, then the whole selection as for
+   * a mouse move.
+   */
+  private void updateHelper(ScrollState state,
+                            DragAndDropManager dragAndDropManager) {
+    boolean handleDroppable = dragAndDropManager.isHandleDroppable(state.ctx);
+    List<Element> selection = state.ctx.getSelectedDraggables();
+
+    for (ScrollContainer container : state.containers) {
+      if (container.deltaLeft == 0 && container.deltaTop == 0) {
+        continue;
+      }
+      if (container.element != null) {
+        for (int i = 0; i < selection.size(); i++) {
+          moveOffsetParent(DraggableHandler.getInstance(selection.get(i)),
+              container);
+        }
+      }
+      if (handleDroppable) {
+        dragAndDropManager.scroll(state.ctx, state.event, container.element,
+            container.deltaLeft, container.deltaTop);
+      }
+      container.deltaLeft = 0;
+      container.deltaTop = 0;
+    }
+    state.scrolled = false;
+
+    Draggable.refreshDrag(state.ctx, state.event);
+  }
 
+  /**
+   * The scroll of the scroll element of a helper is read by its handler, the
+   * scroll of its ancestors moves its offset parent.
+   */
+  private void moveOffsetParent(DraggableHandler handler,
+                                ScrollContainer container) {
+    if (handler == null || handler.getDragContext() == null) {
+      return;
+    }
+    DragFrame frame = handler.getDragFrame();
+    if (container.element != frame.getScrollElement()
+        && container.element.isOrHasChild(frame.getOffsetParent())) {
+      handler.moveOffsetParent(-container.deltaLeft, -container.deltaTop);
+    }
   }
 
 }
@@ -19,13 +19,17 @@ import com.google.gwt.dom.client.Element;
 import com.google.gwt.query.client.GQuery;
 import com.google.gwt.query.client.GQuery.Offset;
 import com.google.gwt.query.client.plugins.events.GqEvent;
+import gwtquery.plugins.draggable.client.DragStateKey;
 import gwtquery.plugins.draggable.client.DraggableHandler;
 import gwtquery.plugins.draggable.client.DraggableOptions;
 import gwtquery.plugins.draggable.client.DraggableOptions.SnapMode;
+import gwtquery.plugins.draggable.client.DraggableOptions.SnapStrategy;
 import gwtquery.plugins.draggable.client.events.DragContext;
-
-import java.util.ArrayList;
-import java.util.List;
+import gwtquery.plugins.draggable.client.geom.RectStore;
+import gwtquery.plugins.draggable.client.geom.SnapEdges;
+import gwtquery.plugins.draggable.client.geom.SnapIndex;
+import gwtquery.plugins.draggable.client.geom.SnapResolver;
+import gwtquery.plugins.draggable.client.geom.SnapTargets;
 
 import static com.google.gwt.query.client.GQuery.$;
 
@@ -34,35 +38,45 @@ import static com.google.gwt.query.client.GQuery.$;
  *
  * @author Julien Dramaix (julien.dramaix@gmail.com, @jdramaix)
  */
-public class SnapPlugin implements DraggablePlugin {
-
-  private static class SnapElement {
-
-    Offset offset;
-    int width;
-    int height;
-
-    public SnapElement(Offset o, int width, int height) {
-      offset = o;
-      this.width = width;
-      this.height = height;
-    }
-
-    public int getHeight() {
-      return height;
-    }
-
-    public Offset getOffset() {
-      return offset;
-    }
+public class SnapPlugin extends AbstractBatchedDraggablePlugin {
+
+  private static final DragStateKey<SnapTargets> SNAP_ELEMENTS_KEY =
+      new DragStateKey<SnapTargets>("snapElements");
+
+  private static final SnapTargetCache targetCache = new SnapTargetCache();
+
+  /**
+   * Forget the geometry of all the snap elements. The next drag will measure
+   * them again.
+   * <p/>
+   * The changes of the DOM, the resizes and the scrolls are detected
+   * automatically; call this method when the snap elements are moved by other
+   * means, like a css animation.
+   */
+  public static void invalidateSnapTargets() {
+    targetCache.invalidateAll();
+  }
 
-    public int getWidth() {
-      return width;
+  /**
+   * Forget the geometry of the given snap elements. The next drag will
+   * measure them again.
+   */
+  public static void invalidateSnapTargets(GQuery snapElements) {
+    for (Element element : snapElements.elements()) {
+      targetCache.invalidate(element);
     }
+  }
 
+  private static Offset convertToRelative(DraggableHandler handler,
+                                          Offset result, int left, int top) {
+    result.left = left;
+    result.top = top;
+    return handler.convertPositionTo(false, result, result);
   }
 
-  private static String SNAP_ELEMENTS_KEY = "snapElements";
+  // reused for each mouse move to avoid allocations
+  private final Offset snappedPosition = new Offset(0, 0);
+  private final SnapResolver snapResolver = new SnapResolver();
 
   public String getName() {
     return "snap";
@@ -72,141 +86,71 @@ public class SnapPlugin implements DraggablePlugin {
     return options.isSnap();
   }
 
-  @SuppressWarnings("unchecked")
-  public void onDrag(DraggableHandler handler, DragContext ctx, GqEvent e) {
+  public boolean implementsPhase(DragPhase phase) {
+    return true;
+  }
 
-    List<SnapElement> snapElements = $(ctx.getDraggable()).data(
-        SNAP_ELEMENTS_KEY, ArrayList.class);
+  /**
+   * The snap elements are measured at the start of the drag, unless their
+   * geometry is still in the cache. During the drag, only the position of the
+   * handler is modified, the DOM is never written. When the drag stops, the
+   * cache stops ignoring the writes to the dragged element.
+   */
+  @Override
+  public void measure(DragPhase phase, DraggableHandler handler,
+                      DragContext ctx, GqEvent e) {
+    if (phase == DragPhase.START) {
+      measureSnapElements(handler, ctx);
+    } else if (phase == DragPhase.DRAG) {
+      snap(handler, ctx);
+    } else if (phase == DragPhase.STOP) {
+      targetCache.release(ctx.getDraggable(), ctx.getHelper());
+    }
+  }
 
-    int snapTolerance = handler.getOptions().getSnapTolerance();
-    SnapMode snapMode = handler.getOptions().getSnapMode();
+  private void snap(DraggableHandler handler, DragContext ctx) {
 
-    int helperLeft = handler.getAbsolutePosition().left;
-    int helperRight = helperLeft + handler.getHelperDimension().getWidth();
-    int helperTop = handler.getAbsolutePosition().top;
-    int helperBottom = helperTop + handler.getHelperDimension().getHeight();
-
-    for (SnapElement snapElement : snapElements) {
-      int snapElementLeft = snapElement.getOffset().left;
-      int snapElementRight = snapElementLeft + snapElement.getWidth();
-      int snapElementTop = snapElement.getOffset().top;
-      int snapElementBottom = snapElementTop + snapElement.getHeight();
-
-      if (!((snapElementLeft - snapTolerance < helperLeft
-          && helperLeft < snapElementRight + snapTolerance
-          && snapElementTop - snapTolerance < helperTop && helperTop < snapElementBottom
-          + snapTolerance)
-          || (snapElementLeft - snapTolerance < helperLeft
-          && helperLeft < snapElementRight + snapTolerance
-          && snapElementTop - snapTolerance < helperBottom && helperBottom < snapElementBottom
-          + snapTolerance)
-          || (snapElementLeft - snapTolerance < helperRight
-          && helperRight < snapElementRight + snapTolerance
-          && snapElementTop - snapTolerance < helperTop && helperTop < snapElementBottom
-          + snapTolerance) || (snapElementLeft - snapTolerance < helperRight
-          && helperRight < snapElementRight + snapTolerance
-          && snapElementTop - snapTolerance < helperBottom && helperBottom < snapElementBottom
-          + snapTolerance))) {
-        // no snapping !!
-        /*
-         * if (snapElement.isSnapping()){ //TODO trigger event
-         * sanpReleaseEvent... //handler.triggerEvent()
-         * snapElement.setSnapping(false); continue; }
-         */
-
-        continue;
-      }
-      Offset newTopDimension = null;
-      Offset newLeftDimension = null;
-      if (SnapMode.INNER != snapMode) {
-        boolean snapTop = Math.abs(snapElementTop - helperBottom) <= snapTolerance;
-        boolean snapBottom = Math.abs(snapElementBottom - helperTop) <= snapTolerance;
-        boolean snapLeft = Math.abs(snapElementLeft - helperRight) <= snapTolerance;
-        boolean snapRight = Math.abs(snapElementRight - helperLeft) <= snapTolerance;
-
-        if (snapTop) {
-          newTopDimension = handler.convertPositionTo(false,
-              new Offset(0, snapElementTop
-                  - handler.getHelperDimension().getHeight()));
-        } else if (snapBottom) {
-          newTopDimension = handler.convertPositionTo(false,
-              new Offset(0, snapElementBottom));
-        }
-
-        if (snapLeft) {
-          newLeftDimension = handler.convertPositionTo(false,
-              new Offset(snapElementLeft
-                  - handler.getHelperDimension().getWidth(), 0));
-        } else if (snapRight) {
-          newLeftDimension = handler.convertPositionTo(false,
-              new Offset(snapElementRight, 0));
-        }
-      }
-
-      if (SnapMode.OUTER != snapMode) {
-        boolean snapTop = Math.abs(snapElementTop - helperTop) <= snapTolerance;
-        boolean snapBottom = Math.abs(snapElementBottom - helperBottom) <= snapTolerance;
-        boolean snapLeft = Math.abs(snapElementLeft - helperLeft) <= snapTolerance;
-        boolean snapRight = Math.abs(snapElementRight - helperRight) <= snapTolerance;
-
-        if (snapTop) {
-          newTopDimension = handler.convertPositionTo(false,
-              new Offset(0, snapElementTop));
-        } else if (snapBottom) {
-          newTopDimension = handler.convertPositionTo(false,
-              new Offset(0, snapElementBottom
-                  - handler.getHelperDimension().getHeight()));
-        }
-
-        if (snapLeft) {
-          newLeftDimension = handler.convertPositionTo(false,
-              new Offset(snapElementLeft, 0));
-        } else if (snapRight) {
-          newLeftDimension = handler.convertPositionTo(false,
-              new Offset(snapElementRight
-                  - handler.getHelperDimension().getWidth(), 0));
-        }
-      }
-
-      if (newTopDimension != null) {
-        int newTop = newTopDimension.top - handler.getMargin().top;
-        int newLeft = handler.getPosition().left;
-        handler.setPosition(new Offset(newLeft, newTop));
-
-      }
-
-      if (newLeftDimension != null) {
-        int newTop = handler.getPosition().top;
-        int newLeft = newLeftDimension.left
-            - handler.getMargin().left;
-        handler.setPosition(new Offset(newLeft, newTop));
-
-      }
+    SnapTargets snapElements = handler.getDragState(SNAP_ELEMENTS_KEY);
 
+    SnapMode snapMode = handler.getOptions().getSnapMode();
+    snapResolver.init(handler.getOptions().getSnapTolerance(),
+        SnapMode.OUTER != snapMode, SnapMode.INNER != snapMode);
+    snapResolver.start(handler.getAbsolutePosition().left,
+        handler.getAbsolutePosition().top,
+        handler.getHelperDimension().getWidth(),
+        handler.getHelperDimension().getHeight());
+
+    if (!snapElements.snap(snapResolver)) {
+      return;
     }
+
+    convertToRelative(handler, snappedPosition, snapResolver.getLeft(),
+        snapResolver.getTop());
+
+    int newLeft = snapResolver.isSnappedLeft() ? snappedPosition.left
+        - handler.getMargin().left : handler.getPosition().left;
+    int newTop = snapResolver.isSnappedTop() ? snappedPosition.top
+        - handler.getMargin().top : handler.getPosition().top;
+    handler.setPosition(newLeft, newTop);
   }
 
-  public void onStart(DraggableHandler handler, DragContext ctx,
-                      GqEvent e) {
+  private void measureSnapElements(DraggableHandler handler, DragContext ctx) {
     Element draggableElement = ctx.getDraggable();
-    List<SnapElement> snapElements = new ArrayList<SnapElement>();
     GQuery snap = (handler.getOptions().getSnap_$() != null ? handler
         .getOptions().getSnap_$() : $(handler.getOptions().getSnap()));
 
-    for (Element element : snap.elements()) {
-      if (element != draggableElement) {
-        GQuery $element = $(element);
-        snapElements.add(new SnapElement($element.offset(), $element.outerWidth(),
-            $element.outerHeight()));
-      }
-    }
-    $(draggableElement).data(SNAP_ELEMENTS_KEY, snapElements);
+    RectStore snapElements = targetCache.measure(snap, draggableElement,
+        ctx.getHelper());
 
-  }
+    // indexed once, so that each mouse move only tests the close elements
+    SnapTargets snapTargets;
+    if (handler.getOptions().getSnapStrategy() == SnapStrategy.SORTED_EDGES) {
+      snapTargets = new SnapEdges(snapElements);
+    } else {
+      snapTargets = new SnapIndex(snapElements);
+    }
+    handler.setDragState(SNAP_ELEMENTS_KEY, snapTargets);
 
-  public void onStop(DraggableHandler handler, DragContext ctx, GqEvent e) {
-    // nothing to do
   }
 
 }
-
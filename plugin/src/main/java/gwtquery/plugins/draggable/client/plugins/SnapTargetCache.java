@@ -0,0 +1,328 @@
+/*
+ * Copyright 2010 The gwtquery plugins team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package gwtquery.plugins.draggable.client.plugins;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.dom.client.Element;
+import com.google.gwt.query.client.GQuery;
+import com.google.gwt.query.client.GQuery.Offset;
+import gwtquery.plugins.draggable.client.geom.RectStore;
+
+import static com.google.gwt.query.client.GQuery.$;
+
+/**
+ * Geometry of the snap elements kept across the drag operations, so that
+ * starting a drag doesn't force a layout for each snap element.
+ * <p/>
+ * A change of an element may reflow its siblings and its ancestors, so all
+ * the cache is forgotten when the layout may have moved the elements: DOM
+ * mutations, resize of a snap element, resize of the window or scroll of an
+ * element. Only the writes of the drag operation to its helper, the changes
+ * of the style properties which don't affect the layout (like the cursor of
+ * the body) and the attributes set to the same value are ignored.
+ * <p/>
+ * The DOM is observed only while geometries are cached. The browsers without
+ * MutationObserver don't use the cache and measure the snap elements at each
+ * drag start.
+ */
+final class SnapTargetCache {
+
+  /**
+   * Geometry of one snap element, valid while the version of the cache
+   * doesn't change.
+   */
+  private static class Geometry {
+    private final int left;
+    private final int top;
+    private final int width;
+    private final int height;
+    private final int version;
+
+    private Geometry(int left, int top, int width, int height, int version) {
+      this.left = left;
+      this.top = top;
+      this.width = width;
+      this.height = height;
+      this.version = version;
+    }
+  }
+
+  private static final String GEOMETRY_KEY = "__snapTargetGeometry";
+
+  private static native boolean isSupported() /*-{
+      return !!$wnd.MutationObserver;
+  }-*/;
+
+  private static native void connect(JavaScriptObject observers) /*-{
+      observers.connect();
+  }-*/;
+
+  private static native void disconnect(JavaScriptObject observers) /*-{
+      observers.disconnect();
+  }-*/;
+
+  private static native void observeResize(JavaScriptObject observers,
+                                           Element element) /*-{
+      if (observers.resize) {
+          observers.resize.observe(element);
+      }
+  }-*/;
+
+  private static native void unobserveResize(JavaScriptObject observers,
+                                             Element element) /*-{
+      if (observers.resize) {
+          observers.resize.unobserve(element);
+      }
+  }-*/;
+
+  private static native void flush(JavaScriptObject observers) /*-{
+      observers.flush();
+  }-*/;
+
+  private static native void setHelper(Element helper, boolean dragged) /*-{
+      helper.__gwtQuerySnapHelper = dragged;
+  }-*/;
+
+  private int version;
+  private boolean installed;
+  // null if the browser cannot detect the changes
+  private JavaScriptObject observers;
+  // number of geometries of the current version
+  private int cachedCount;
+
+  /**
+   * Forget the geometry of one element.
+   */
+  public void invalidate(Element element) {
+    GQuery $element = $(element);
+    Geometry geometry = $element.data(GEOMETRY_KEY, Geometry.class);
+    $element.removeData(GEOMETRY_KEY);
+    if (observers != null && geometry != null && geometry.version == version) {
+      unobserveResize(observers, element);
+      if (--cachedCount == 0) {
+        disconnect(observers);
+      }
+    }
+  }
+
+  /**
+   * Forget the geometry of all the elements.
+   */
+  public void invalidateAll() {
+    version++;
+    if (observers != null && cachedCount > 0) {
+      cachedCount = 0;
+      disconnect(observers);
+    }
+  }
+
+  /**
+   * Return the geometry of the snap elements, the dragged element excluded.
+   * Only the elements changed since their last measure are read in the DOM.
+   * The writes to the helper are ignored until {@link #release(Element,
+   * Element)} is called.
+   */
+  public RectStore measure(GQuery snap, Element draggable, Element helper) {
+    install();
+    if (observers != null && helper != null) {
+      // moving the helper doesn't change the layout of the other elements
+      setHelper(helper, true);
+    }
+
+    Element[] elements = snap.elements();
+    RectStore snapElements = new RectStore(elements.length);
+    for (int i = 0; i < elements.length; i++) {
+      if (elements[i] != draggable) {
+        addGeometry(snapElements, elements[i], i);
+      }
+    }
+    return snapElements;
+  }
+
+  /**
+   * Stop ignoring the writes to the dragged element at the end of the drag
+   * operation. The dragged element moved, its geometry is forgotten. A helper
+   * other than the dragged element keeps being ignored until it is removed.
+   */
+  public void release(Element draggable, Element helper) {
+    if (observers == null) {
+      return;
+    }
+    if (helper == draggable) {
+      // the writes done while the element was the helper are still pending
+      flush(observers);
+      setHelper(helper, false);
+    }
+    invalidate(draggable);
+  }
+
+  /**
+   * Add the geometry of the element to the store, with the given id.
+   */
+  private void addGeometry(RectStore store, Element element, int id) {
+    if (observers != null) {
+      Geometry geometry = $(element).data(GEOMETRY_KEY, Geometry.class);
+      if (geometry != null && geometry.version == version) {
+        store.add(geometry.left, geometry.top, geometry.width,
+            geometry.height, id);
+        return;
+      }
+    }
+
+    GQuery $element = $(element);
+    Offset offset = $element.offset();
+    int width = $element.outerWidth();
+    int height = $element.outerHeight();
+    store.add(offset.left, offset.top, width, height, id);
+
+    if (observers != null) {
+      $element.data(GEOMETRY_KEY, new Geometry(offset.left, offset.top, width,
+          height, version));
+      if (cachedCount++ == 0) {
+        connect(observers);
+      }
+      observeResize(observers, element);
+    }
+  }
+
+  /**
+   * @return true if the cached size of the element is not its current size
+   */
+  private boolean hasResized(Element element) {
+    Geometry geometry = $(element).data(GEOMETRY_KEY, Geometry.class);
+    return geometry != null && geometry.version == version
+        && (element.getOffsetWidth() != geometry.width
+        || element.getOffsetHeight() != geometry.height);
+  }
+
+  private void install() {
+    if (!installed) {
+      installed = true;
+      if (isSupported()) {
+        observers = createObservers();
+      }
+    }
+  }
+
+  private native JavaScriptObject createObservers() /*-{
+      var self = this;
+      var observers = {};
+      var invalidateAll = $entry(function () {
+          self.@gwtquery.plugins.draggable.client.plugins.SnapTargetCache::invalidateAll()();
+      });
+      var isHelpers = function (nodes) {
+          for (var i = 0; i < nodes.length; i++) {
+              if (!nodes[i].__gwtQuerySnapHelper) {
+                  return false;
+              }
+          }
+          return true;
+      };
+      // the style properties which don't change the layout
+      var paintOnly = new RegExp("^(cursor|opacity|color|z-index|visibility|"
+          + "filter|pointer-events|box-shadow|text-shadow|background(-.*)?|"
+          + "outline(-.*)?)$");
+      var layoutStyle = function (style) {
+          var declarations = (style || "").split(";");
+          var result = [];
+          for (var i = 0; i < declarations.length; i++) {
+              var declaration = declarations[i].replace(/^\s+|\s+$/g, "");
+              var colon = declaration.indexOf(":");
+              var name = declaration.substring(0, colon)
+                  .replace(/\s+$/, "").toLowerCase();
+              if (declaration.length > 0
+                  && (colon < 0 || !paintOnly.test(name))) {
+                  result.push(declaration);
+              }
+          }
+          return result.join(";");
+      };
+      var isLayoutChange = function (record) {
+          var target = record.target;
+          var name = record.attributeName;
+          var value = target.getAttribute(name);
+          if (target.__gwtQuerySnapHelper || value === record.oldValue) {
+              return false;
+          }
+          // any other attribute may change the layout through a css selector
+          return name != "style"
+              || layoutStyle(value) != layoutStyle(record.oldValue);
+      };
+
+      var onMutations = $entry(function (records) {
+          for (var i = 0; i < records.length; i++) {
+              var record = records[i];
+              if (record.type == "attributes") {
+                  if (!isLayoutChange(record)) {
+                      continue;
+                  }
+              } else if (record.type == "childList"
+                  && isHelpers(record.addedNodes)
+                  && isHelpers(record.removedNodes)) {
+                  continue;
+              }
+              invalidateAll();
+              return;
+          }
+      });
+      observers.mutation = new $wnd.MutationObserver(onMutations);
+      // handle the pending records before a flag of a helper changes
+      observers.flush = function () {
+          onMutations(observers.mutation.takeRecords());
+      };
+
+      if ($wnd.ResizeObserver) {
+          // the first notification of an element reports its current size
+          observers.resize = new $wnd.ResizeObserver($entry(function (entries) {
+              for (var i = 0; i < entries.length; i++) {
+                  if (self.@gwtquery.plugins.draggable.client.plugins.SnapTargetCache::hasResized(Lcom/google/gwt/dom/client/Element;)(entries[i].target)) {
+                      invalidateAll();
+                      return;
+                  }
+              }
+          }));
+      }
+
+      // the scroll of the document doesn't move the elements in the page
+      var onScroll = function (e) {
+          if (e.target !== $doc) {
+              invalidateAll();
+          }
+      };
+
+      observers.connect = function () {
+          observers.mutation.observe($doc.documentElement, {
+              attributes: true,
+              attributeOldValue: true,
+              characterData: true,
+              childList: true,
+              subtree: true
+          });
+          $wnd.addEventListener("resize", invalidateAll, false);
+          $doc.addEventListener("scroll", onScroll, true);
+      };
+      observers.disconnect = function () {
+          observers.mutation.disconnect();
+          if (observers.resize) {
+              observers.resize.disconnect();
+          }
+          $wnd.removeEventListener("resize", invalidateAll, false);
+          $doc.removeEventListener("scroll", onScroll, true);
+      };
+
+      return observers;
+  }-*/;
+}
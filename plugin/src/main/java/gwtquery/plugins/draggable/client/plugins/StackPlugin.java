@@ -25,20 +25,102 @@ import gwtquery.plugins.draggable.client.events.DragContext;
 import java.util.Arrays;
 import java.util.Comparator;
 
+import static com.google.gwt.query.client.GQuery.$;
+
 /**
  * This add-on manage the z-index for the helper while being dragged.
  *
  * @author Julien Dramaix (julien.dramaix@gmail.com, @jdramaix)
  */
-public class StackPlugin implements DraggablePlugin {
+public class StackPlugin extends AbstractBatchedDraggablePlugin {
+
+  /**
+   * Z-order of the elements of a stack. Bringing an element to the front
+   * gives it the next value of a counter, the other elements are not
+   * modified. When the z-indexes spread too much, they are compacted again.
+   * <p/>
+   * The group is kept in a data slot of its elements, so it is shared by all
+   * the draggables stacked with the same elements and released with them. It
+   * is released when the stack option changes.
+   */
+  private static class StackGroup {
+    private final Element[] elements;
+    // lowest z-index of the stack
+    private int zIndexMin;
+    // z-index of the element in front
+    private int zIndexMax;
+    // last element brought to the front
+    private Element front;
+
+    private StackGroup(Element[] elements) {
+      this.elements = elements;
+      zIndexMin = Integer.MAX_VALUE;
+      zIndexMax = Integer.MIN_VALUE;
+      for (Element element : elements) {
+        int zIndex = getZindex(element);
+        zIndexMin = Math.min(zIndexMin, zIndex);
+        zIndexMax = Math.max(zIndexMax, zIndex);
+      }
+    }
+
+    private void bringToFront(Element element) {
+      // the z-indexes may have been changed outside of the plugin
+      int zIndex = getZindex(element);
+      zIndexMin = Math.min(zIndexMin, zIndex);
+      zIndexMax = Math.max(zIndexMax, zIndex);
+      if (front != null) {
+        zIndexMax = Math.max(zIndexMax, getZindex(front));
+      }
+
+      if (element == front && zIndex == zIndexMax) {
+        return;
+      }
+      if (zIndexMax - zIndexMin >= MAX_SPREAD_FACTOR * elements.length) {
+        compact();
+      }
+      zIndexMax++;
+      element.getStyle().setZIndex(zIndexMax);
+      front = element;
+    }
+
+    /**
+     * Give consecutive z-indexes to the elements, keeping their order.
+     */
+    private void compact() {
+      // read all the z-indexes before writing the first one
+      final int[] zIndexes = new int[elements.length];
+      Integer[] order = new Integer[elements.length];
+      for (int i = 0; i < elements.length; i++) {
+        zIndexes[i] = getZindex(elements[i]);
+        order[i] = i;
+      }
+      Arrays.sort(order, new Comparator<Integer>() {
+        public int compare(Integer o1, Integer o2) {
+          int z1 = zIndexes[o1];
+          int z2 = zIndexes[o2];
+          return z1 < z2 ? -1 : (z1 == z2 ? 0 : 1);
+        }
+      });
+      for (int i = 0; i < order.length; i++) {
+        elements[order[i]].getStyle().setZIndex(zIndexMin + i);
+      }
+      zIndexMax = zIndexMin + elements.length - 1;
+    }
+  }
 
-  private class ZIndexComparator implements Comparator<Element> {
+  private static final String STACK_GROUP_KEY = "__stackGroup";
 
-    public int compare(Element element1, Element element2) {
-      int zIndex1 = getZindex(element1);
-      int zIndex2 = getZindex(element2);
-      return (zIndex1 - zIndex2);
+  // the z-indexes of a stack are compacted when they spread over more than
+  // this factor times the number of elements
+  private static final int MAX_SPREAD_FACTOR = 2;
 
+  /**
+   * Release the stack group kept by the elements, a new one is created at the
+   * next drag. Called when the stack option changes.
+   */
+  public static void invalidateStack(GQuery stack) {
+    if (stack != null) {
+      stack.removeData(STACK_GROUP_KEY);
     }
   }
 
@@ -47,7 +129,7 @@ public class StackPlugin implements DraggablePlugin {
     if (zIndex == null || zIndex.length() == 0) {
       return 0;
     }
-    return new Integer(zIndex);
+    return Integer.parseInt(zIndex);
   }
 
   public String getName() {
@@ -58,32 +140,28 @@ public class StackPlugin implements DraggablePlugin {
     return options.getStack() != null && options.getStack().length() != 0;
   }
 
-  public void onDrag(DraggableHandler info, DragContext ctx, GqEvent e) {
+  public boolean implementsPhase(DragPhase phase) {
+    return phase == DragPhase.START;
   }
 
-  public void onStart(DraggableHandler info, DragContext ctx, GqEvent e) {
-
-    GQuery stackElements = info.getOptions().getStack();
-    Element[] sortedElementArray = stackElements.elements();
-    Arrays.sort(sortedElementArray, new ZIndexComparator());
-
-    if (sortedElementArray.length == 0) {
+  @Override
+  public void mutate(DragPhase phase, DraggableHandler info, DragContext ctx,
+                     GqEvent e) {
+    if (phase != DragPhase.START) {
       return;
     }
 
-    int zIndexMin = getZindex(sortedElementArray[0]);
-    int i = 0;
-    for (Element el : sortedElementArray) {
-      el.getStyle().setZIndex(zIndexMin + i);
-      i++;
+    Element[] elements = info.getOptions().getStack().elements();
+    StackGroup stackGroup = $(elements[0]).data(STACK_GROUP_KEY,
+        StackGroup.class);
+    if (stackGroup == null) {
+      stackGroup = new StackGroup(elements);
+      for (Element element : elements) {
+        $(element).data(STACK_GROUP_KEY, stackGroup);
+      }
     }
 
-    info.getHelper().get(0).getStyle().setZIndex(
-        zIndexMin + sortedElementArray.length);
-
-  }
-
-  public void onStop(DraggableHandler info, DragContext ctx, GqEvent e) {
+    stackGroup.bringToFront(info.getHelper().get(0));
   }
 
 }
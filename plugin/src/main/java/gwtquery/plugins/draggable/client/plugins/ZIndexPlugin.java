@@ -30,7 +30,7 @@ import static com.google.gwt.query.client.GQuery.$;
  *
  * @author Julien Dramaix (julien.dramaix@gmail.com, @jdramaix)
  */
-public class ZIndexPlugin implements DraggablePlugin {
+public class ZIndexPlugin extends AbstractBatchedDraggablePlugin {
 
   private static String OLD_ZINDEX_KEY = "oldZIndex";
   private static String ZINDEX_CSS = "zIndex";
@@ -43,12 +43,17 @@ public class ZIndexPlugin implements DraggablePlugin {
     return options.getZIndex() != null;
   }
 
-  public void onDrag(DraggableHandler handler, DragContext ctx, GqEvent e) {
+  public boolean implementsPhase(DragPhase phase) {
+    return phase != DragPhase.DRAG;
   }
 
-  public void onStart(DraggableHandler handler, DragContext ctx,
-                      GqEvent e) {
-    GQuery $element = (handler.getOptions().getHelperType() == HelperType.ORIGINAL) ? $(ctx.getDraggable()) : handler.getHelper();
+  @Override
+  public void measure(DragPhase phase, DraggableHandler handler,
+                      DragContext ctx, GqEvent e) {
+    if (phase != DragPhase.START) {
+      return;
+    }
+    GQuery $element = getStartElement(handler, ctx);
     if ($element == null || $element.length() == 0) {
       return;
     }
@@ -57,11 +62,26 @@ public class ZIndexPlugin implements DraggablePlugin {
     if (oldZIndex != null) {
       $element.data(OLD_ZINDEX_KEY, oldZIndex);
     }
-    $element.css(ZINDEX_CSS, handler.getOptions().getZIndex().toString());
+  }
+
+  @Override
+  public void mutate(DragPhase phase, DraggableHandler handler,
+                     DragContext ctx, GqEvent e) {
+    if (phase == DragPhase.START) {
+      GQuery $element = getStartElement(handler, ctx);
+      if ($element != null && $element.length() != 0) {
+        $element.css(ZINDEX_CSS, handler.getOptions().getZIndex().toString());
+      }
+    } else if (phase == DragPhase.STOP) {
+      restoreZIndex(handler, ctx);
+    }
+  }
 
+  private GQuery getStartElement(DraggableHandler handler, DragContext ctx) {
+    return (handler.getOptions().getHelperType() == HelperType.ORIGINAL) ? $(ctx.getDraggable()) : handler.getHelper();
   }
 
-  public void onStop(DraggableHandler handler, DragContext ctx, GqEvent e) {
+  private void restoreZIndex(DraggableHandler handler, DragContext ctx) {
     //helper can be null if the draggableElement was unloaded and after loaded
     GQuery $element = (handler.getOptions().getHelperType() == HelperType.ORIGINAL) ? handler.getHelper() : $(ctx.getDraggable());
     if ($element == null || $element.length() == 0) {
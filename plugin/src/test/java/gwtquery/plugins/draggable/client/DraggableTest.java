@@ -1,12 +1,90 @@
 package gwtquery.plugins.draggable.client;
 
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.RepeatingCommand;
+import com.google.gwt.dom.client.Document;
+import com.google.gwt.dom.client.Element;
+import com.google.gwt.dom.client.NativeEvent;
+import com.google.gwt.dom.client.Style.Overflow;
+import com.google.gwt.dom.client.Style.Position;
+import com.google.gwt.dom.client.Style.Unit;
+import com.google.gwt.dom.client.StyleElement;
+import com.google.gwt.event.shared.GwtEvent;
+import com.google.gwt.event.shared.HasHandlers;
 import com.google.gwt.junit.client.GWTTestCase;
+import com.google.gwt.query.client.Function;
+import com.google.gwt.query.client.plugins.events.GqEvent;
+import gwtquery.plugins.draggable.client.DragAndDropManager.HoverListener;
+import gwtquery.plugins.draggable.client.DraggableOptions.DragFunction;
+import gwtquery.plugins.draggable.client.DraggableOptions.GroupingMode;
+import gwtquery.plugins.draggable.client.DraggableOptions.HelperType;
+import gwtquery.plugins.draggable.client.DraggableOptions.MultiDragMode;
+import gwtquery.plugins.draggable.client.DraggableOptions.RevertOption;
+import gwtquery.plugins.draggable.client.events.DragContext;
+import gwtquery.plugins.draggable.client.events.DragEvent;
+import gwtquery.plugins.draggable.client.events.DraggableSelectionChangedEvent;
+import gwtquery.plugins.draggable.client.plugins.AbstractBatchedDraggablePlugin;
+import gwtquery.plugins.draggable.client.plugins.DragPhase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.gwt.query.client.GQuery.$;
+import static com.google.gwt.query.client.GQuery.body;
 
 /**
  * Test class for Draggable plugin
  */
 public class DraggableTest extends GWTTestCase {
 
+  /**
+   * Count the distinct instances received, compared by identity.
+   */
+  private static class InstanceCounter {
+    private List<Object> instances = new ArrayList<Object>();
+
+    void add(Object o) {
+      for (Object instance : instances) {
+        if (instance == o) {
+          return;
+        }
+      }
+      instances.add(o);
+    }
+
+    int count() {
+      return instances.size();
+    }
+  }
+
+  /**
+   * Create an absolutely positioned div and add it to the given parent.
+   */
+  private static Element createBox(Element parent, int left, int top,
+                                   int width, int height) {
+    Element box = Document.get().createDivElement();
+    setBounds(box, left, top, width, height);
+    parent.appendChild(box);
+    return box;
+  }
+
+  private static GqEvent createMouseEvent(int x, int y) {
+    NativeEvent event = Document.get().createMouseMoveEvent(0, x, y, x, y,
+        false, false, false, false, NativeEvent.BUTTON_LEFT);
+    return event.cast();
+  }
+
+  private static void setBounds(Element element, int left, int top,
+                                int width, int height) {
+    element.getStyle().setPosition(Position.ABSOLUTE);
+    element.getStyle().setLeft(left, Unit.PX);
+    element.getStyle().setTop(top, Unit.PX);
+    element.getStyle().setWidth(width, Unit.PX);
+    element.getStyle().setHeight(height, Unit.PX);
+  }
+
+  private Element draggable;
+
   public String getModuleName() {
     return "gwtquery.plugins.draggable.Draggable";
   }
@@ -15,5 +93,603 @@ public class DraggableTest extends GWTTestCase {
 
   }
 
+  public void testDroppablesByScope() {
+    DragAndDropManager manager = DragAndDropManager.getInstance();
+    Element droppable = Document.get().createDivElement();
+
+    manager.addDroppable(droppable, "testScope");
+    manager.addDroppable(droppable, "testScope");
+    assertEquals(1, manager.getDroppablesByScope("testScope").size());
+    assertTrue(manager.getDroppablesByScope("otherScope").isEmpty());
+
+    manager.removeDroppable(droppable, "testScope");
+    assertTrue(manager.getDroppablesByScope("testScope").isEmpty());
+  }
+
+  public void testOverDroppableInDragStop() {
+    final DragAndDropManager manager = DragAndDropManager.getInstance();
+    final Element droppable = createBox(body, 0, 0, 200, 200);
+
+    final DraggableOptions options = new DraggableOptions();
+    manager.addDroppable(droppable, options.getScope());
+    options.setOnDragStop(new DragFunction() {
+      public void f(DragContext context) {
+        // the drag states are already cleared when the stop event is fired
+        assertSame(droppable, manager.getOverDroppable(context));
+
+        manager.removeDroppable(droppable, options.getScope());
+        $(droppable).remove();
+        finishTest();
+      }
+    });
+
+    Draggable plugin = $(draggable).as(Draggable.Draggable).draggable(options);
+    plugin.mouseStart(draggable, createMouseEvent(10, 10));
+    plugin.mouseDrag(draggable, createMouseEvent(50, 60));
+    plugin.mouseStop(draggable, createMouseEvent(50, 60));
+
+    delayTestFinish(5000);
+  }
+
+  public void testDeltaMultiDrag() {
+    Element follower = Document.get().createDivElement();
+    body.appendChild(follower);
+
+    DraggableOptions options = new DraggableOptions();
+    options.setMultipleSelection(true);
+    options.setMultiDragMode(MultiDragMode.DELTA);
+
+    Draggable plugin = $(draggable).add($(follower)).as(Draggable.Draggable)
+        .draggable(options);
+    plugin.selectAll();
+
+    DraggableHandler handler = DraggableHandler.getInstance(draggable);
+    DraggableHandler followerHandler = DraggableHandler.getInstance(follower);
+
+    plugin.mouseStart(draggable, createMouseEvent(10, 10));
+    plugin.mouseDrag(draggable, createMouseEvent(25, 40));
+
+    // the follower moved by the same distance as the initial draggable
+    assertEquals(handler.getPosition().left
+        - handler.getOriginalPosition().left, followerHandler.getPosition().left
+        - followerHandler.getOriginalPosition().left);
+    assertEquals(handler.getPosition().top - handler.getOriginalPosition().top,
+        followerHandler.getPosition().top
+            - followerHandler.getOriginalPosition().top);
+
+    plugin.mouseStop(draggable, createMouseEvent(25, 40));
+    plugin.unselectAll();
+
+    $(follower).as(Draggable.Draggable).destroy();
+    $(follower).remove();
+  }
+
+  public void testGroupedDeltaMultiDrag() {
+    Element follower = Document.get().createDivElement();
+    body.appendChild(follower);
+    draggable.getStyle().setHeight(20, Unit.PX);
+    follower.getStyle().setHeight(20, Unit.PX);
+
+    DraggableOptions options = new DraggableOptions();
+    options.setMultipleSelection(true);
+    options.setMultiDragMode(MultiDragMode.DELTA);
+    options.setGroupingMode(GroupingMode.DOWN);
+    options.setGroupSpacing(5);
+
+    Draggable plugin = $(draggable).add($(follower)).as(Draggable.Draggable)
+        .draggable(options);
+    plugin.selectAll();
+
+    DraggableHandler handler = DraggableHandler.getInstance(draggable);
+    DraggableHandler followerHandler = DraggableHandler.getInstance(follower);
+
+    plugin.mouseStart(draggable, createMouseEvent(10, 10));
+    plugin.mouseDrag(draggable, createMouseEvent(25, 40));
+
+    // the follower stays grouped under the initial draggable
+    assertEquals(handler.getAbsolutePosition().left, followerHandler
+        .getAbsolutePosition().left);
+    assertEquals(handler.getAbsolutePosition().top + 25, followerHandler
+        .getAbsolutePosition().top);
+
+    plugin.mouseStop(draggable, createMouseEvent(25, 40));
+    plugin.unselectAll();
+
+    $(follower).as(Draggable.Draggable).destroy();
+    $(follower).remove();
+  }
+
+  public void testCompositeMultiDrag() {
+    Element follower = Document.get().createDivElement();
+    body.appendChild(follower);
+
+    DraggableOptions options = new DraggableOptions();
+    options.setMultipleSelection(true);
+    options.setMultiDragMode(MultiDragMode.COMPOSITE);
+
+    Draggable plugin = $(draggable).add($(follower)).as(Draggable.Draggable)
+        .draggable(options);
+    plugin.selectAll();
+
+    DraggableHandler handler = DraggableHandler.getInstance(draggable);
+    DraggableHandler followerHandler = DraggableHandler.getInstance(follower);
+
+    plugin.mouseStart(draggable, createMouseEvent(10, 10));
+    plugin.mouseDrag(draggable, createMouseEvent(25, 40));
+
+    // only the composite helper is moved during the drag
+    assertEquals(1, $("." + Draggable.CssClassNames
+        .GWT_DRAGGABLE_COMPOSITE_HELPER).size());
+    assertEquals(followerHandler.getOriginalPosition().left,
+        followerHandler.getPosition().left);
+
+    plugin.mouseStop(draggable, createMouseEvent(25, 40));
+
+    // the follower is moved by the same distance as the initial draggable
+    assertEquals(0, $("." + Draggable.CssClassNames
+        .GWT_DRAGGABLE_COMPOSITE_HELPER).size());
+    assertEquals(handler.getPosition().left
+        - handler.getOriginalPosition().left, followerHandler.getPosition().left
+        - followerHandler.getOriginalPosition().left);
+    assertEquals(handler.getPosition().top - handler.getOriginalPosition().top,
+        followerHandler.getPosition().top
+            - followerHandler.getOriginalPosition().top);
+
+    plugin.unselectAll();
+
+    $(follower).as(Draggable.Draggable).destroy();
+    $(follower).remove();
+  }
+
+  public void testCoalescedDragFlushedOnStop() {
+    final List<DragEvent> dragEvents = new ArrayList<DragEvent>();
+
+    DraggableOptions options = new DraggableOptions();
+    options.setCoalesceDragEvents(true);
+
+    Draggable plugin = $(draggable).as(Draggable.Draggable).draggable(options,
+        new HasHandlers() {
+          public void fireEvent(GwtEvent<?> event) {
+            if (event instanceof DragEvent) {
+              dragEvents.add((DragEvent) event);
+            }
+          }
+        });
+    DraggableHandler handler = DraggableHandler.getInstance(draggable);
+
+    plugin.mouseStart(draggable, createMouseEvent(10, 10));
+    plugin.mouseDrag(draggable, createMouseEvent(20, 20));
+    plugin.mouseDrag(draggable, createMouseEvent(25, 30));
+    plugin.mouseDrag(draggable, createMouseEvent(30, 40));
+
+    // the moves are processed at the next animation frame
+    assertTrue(dragEvents.isEmpty());
+    assertEquals(handler.getOriginalPosition().left,
+        handler.getPosition().left);
+
+    plugin.mouseStop(draggable, createMouseEvent(30, 40));
+
+    // only the last move is processed, before the drop
+    assertEquals(1, dragEvents.size());
+    assertEquals(20, handler.getPosition().left
+        - handler.getOriginalPosition().left);
+    assertEquals(30, handler.getPosition().top
+        - handler.getOriginalPosition().top);
+  }
+
+  public void testTransformHelperCommittedOnStop() {
+    DraggableOptions options = new DraggableOptions();
+    options.setTransformHelper(true);
+
+    Draggable plugin = $(draggable).as(Draggable.Draggable).draggable(options);
+    DraggableHandler handler = DraggableHandler.getInstance(draggable);
+
+    plugin.mouseStart(draggable, createMouseEvent(10, 10));
+    plugin.mouseDrag(draggable, createMouseEvent(25, 40));
+    plugin.mouseDrag(draggable, createMouseEvent(35, 50));
+
+    plugin.mouseStop(draggable, createMouseEvent(35, 50));
+
+    // the position is written in left and top when the drag stops
+    assertEquals(handler.getPosition().left + "px", draggable.getStyle()
+        .getLeft());
+    assertEquals(handler.getPosition().top + "px", draggable.getStyle()
+        .getTop());
+    assertEquals(25, handler.getPosition().left
+        - handler.getOriginalPosition().left);
+    assertEquals(40, handler.getPosition().top
+        - handler.getOriginalPosition().top);
+  }
+
+  public void testSnapTargetsMeasuredAfterChanges() {
+    final StyleElement style = Document.get().createStyleElement();
+    style.setType("text/css");
+    style.appendChild(Document.get().createTextNode(".snapTestTarget {"
+        + "width: 50px; height: 50px; margin-left: 100px;} "
+        + ".snapTestTarget.snapTestMoved {margin-left: 300px;}"));
+    Document.get().getHead().appendChild(style);
+
+    final Element container = createBox(body, 0, 0, 600, 400);
+    final Element target = Document.get().createDivElement();
+    target.setClassName("snapTestTarget");
+    container.appendChild(target);
+    final Element spacer = Document.get().createDivElement();
+    spacer.getStyle().setHeight(100, Unit.PX);
+
+    setBounds(draggable, 0, 0, 20, 20);
+
+    // the clone helper keeps the cache across the drags
+    DraggableOptions options = new DraggableOptions();
+    options.setHelper(HelperType.CLONE);
+    options.setSnap(".snapTestTarget");
+    final Draggable plugin = $(draggable).as(Draggable.Draggable).draggable(
+        options);
+    final DraggableHandler handler = DraggableHandler.getInstance(draggable);
+
+    // each step runs after the mutations of the previous one are observed
+    Scheduler.get().scheduleFixedDelay(new RepeatingCommand() {
+      private int step = 0;
+
+      public boolean execute() {
+        switch (step++) {
+          case 0:
+          case 2:
+          case 4:
+            plugin.mouseStart(draggable, createMouseEvent(10, 10));
+            return true;
+          case 1:
+            plugin.mouseDrag(draggable, createMouseEvent(85, 10));
+            plugin.mouseStop(draggable, createMouseEvent(85, 10));
+            // the right edge of the helper snaps to the target
+            assertEquals(80, handler.getPosition().left);
+            target.addClassName("snapTestMoved");
+            return true;
+          case 3:
+            plugin.mouseDrag(draggable, createMouseEvent(85, 10));
+            plugin.mouseStop(draggable, createMouseEvent(85, 10));
+            // the class moved the target away
+            assertEquals(75, handler.getPosition().left);
+            container.insertBefore(spacer, target);
+            return true;
+          default:
+            plugin.mouseDrag(draggable, createMouseEvent(285, 10));
+            plugin.mouseStop(draggable, createMouseEvent(285, 10));
+            // the spacer moved the target below the helper
+            assertEquals(275, handler.getPosition().left);
+
+            $(container).remove();
+            style.removeFromParent();
+            finishTest();
+            return false;
+        }
+      }
+    }, 20);
+
+    delayTestFinish(5000);
+  }
+
+  public void testAutoScrollStoppedOnStop() {
+    final Element container = createBox(body, 0, 0, 100, 100);
+    container.getStyle().setOverflow(Overflow.AUTO);
+    createBox(container, 0, 0, 10, 1000);
+    container.appendChild(draggable);
+    setBounds(draggable, 0, 0, 20, 20);
+
+    DraggableOptions options = new DraggableOptions();
+    options.setScroll(true);
+    options.setRevert(RevertOption.ALWAYS);
+    final Draggable plugin = $(draggable).as(Draggable.Draggable).draggable(
+        options);
+
+    // the pointer is close to the bottom edge of the container
+    plugin.mouseStart(draggable, createMouseEvent(10, 10));
+    plugin.mouseDrag(draggable, createMouseEvent(10, 95));
+
+    Scheduler.get().scheduleFixedDelay(new RepeatingCommand() {
+      private int scrollTop = -1;
+
+      public boolean execute() {
+        if (scrollTop < 0) {
+          assertTrue(container.getScrollTop() > 0);
+          plugin.mouseStop(draggable, createMouseEvent(10, 95));
+          scrollTop = container.getScrollTop();
+          return true;
+        }
+
+        // the container didn't scroll during the revert animation
+        assertEquals(scrollTop, container.getScrollTop());
+        $(container).remove();
+        finishTest();
+        return false;
+      }
+    }, 100);
+
+    delayTestFinish(5000);
+  }
+
+  public void testDroppablesShiftedOnScroll() {
+    DragAndDropManager manager = DragAndDropManager.getInstance();
+    Element container = createBox(body, 0, 0, 200, 200);
+    container.getStyle().setOverflow(Overflow.AUTO);
+    createBox(container, 0, 0, 10, 1000);
+    Element droppable = createBox(container, 0, 300, 50, 50);
+    setBounds(draggable, 300, 0, 20, 20);
+
+    DraggableOptions options = new DraggableOptions();
+    manager.addDroppable(droppable, options.getScope());
+    Draggable plugin = $(draggable).as(Draggable.Draggable).draggable(options);
+    DraggableHandler handler = DraggableHandler.getInstance(draggable);
+
+    plugin.mouseStart(draggable, createMouseEvent(310, 10));
+    DragContext ctx = handler.getDragContext();
+
+    // the droppable is now at the top 50 of the page
+    container.setScrollTop(250);
+    manager.scroll(ctx, createMouseEvent(310, 10), container, 0, 250);
+
+    plugin.mouseDrag(draggable, createMouseEvent(20, 75));
+    assertSame(droppable, manager.getOverDroppable(ctx));
+    plugin.mouseDrag(draggable, createMouseEvent(20, 320));
+    assertNull(manager.getOverDroppable(ctx));
+
+    plugin.mouseStop(draggable, createMouseEvent(20, 320));
+    manager.removeDroppable(droppable, options.getScope());
+    $(container).remove();
+  }
+
+  public void testHoverEventsOnChangesOnly() {
+    final List<String> events = new ArrayList<String>();
+    HoverListener listener = new HoverListener() {
+      public void onOut(Element droppable, DragContext ctx) {
+        events.add("out");
+      }
+
+      public void onOver(Element droppable, DragContext ctx) {
+        events.add("over");
+      }
+    };
+
+    DragAndDropManager manager = DragAndDropManager.getInstance();
+    Element droppable = createBox(body, 100, 0, 50, 50);
+    setBounds(draggable, 0, 0, 20, 20);
+
+    DraggableOptions options = new DraggableOptions();
+    manager.addDroppable(droppable, options.getScope());
+    manager.addHoverListener(listener);
+    try {
+      Draggable plugin = $(draggable).as(Draggable.Draggable).draggable(
+          options);
+
+      plugin.mouseStart(draggable, createMouseEvent(10, 10));
+      plugin.mouseDrag(draggable, createMouseEvent(20, 10));
+      assertTrue(events.isEmpty());
+
+      // the helper overlaps the droppable during several moves
+      plugin.mouseDrag(draggable, createMouseEvent(100, 10));
+      plugin.mouseDrag(draggable, createMouseEvent(105, 10));
+      plugin.mouseDrag(draggable, createMouseEvent(110, 10));
+      assertEquals(1, events.size());
+      assertEquals("over", events.get(0));
+
+      plugin.mouseDrag(draggable, createMouseEvent(210, 10));
+      plugin.mouseDrag(draggable, createMouseEvent(220, 10));
+      assertEquals(2, events.size());
+      assertEquals("out", events.get(1));
+
+      plugin.mouseStop(draggable, createMouseEvent(220, 10));
+      assertEquals(2, events.size());
+    } finally {
+      manager.removeHoverListener(listener);
+      manager.removeDroppable(droppable, options.getScope());
+      $(droppable).remove();
+    }
+  }
+
+  public void testMeasureBeforeMutate() {
+    final List<String> calls = new ArrayList<String>();
+    final DraggableOptions options = new DraggableOptions();
+    options.setMultipleSelection(true);
+
+    Draggable.registerDraggablePlugin(new AbstractBatchedDraggablePlugin() {
+      public String getName() {
+        return "measureBeforeMutateTest";
+      }
+
+      public boolean hasToBeExecuted(DraggableOptions draggableOptions) {
+        return draggableOptions == options;
+      }
+
+      public boolean implementsPhase(DragPhase phase) {
+        return phase == DragPhase.DRAG;
+      }
+
+      @Override
+      public void measure(DragPhase phase, DraggableHandler handler,
+                          DragContext ctx, GqEvent e) {
+        calls.add("measure " + ctx.getDraggable().getId());
+      }
+
+      @Override
+      public void mutate(DragPhase phase, DraggableHandler handler,
+                         DragContext ctx, GqEvent e) {
+        calls.add("mutate " + ctx.getDraggable().getId());
+      }
+    });
+
+    try {
+      Element other = Document.get().createDivElement();
+      body.appendChild(other);
+      draggable.setId("first");
+      other.setId("second");
+
+      Draggable plugin = $(draggable).add($(other)).as(Draggable.Draggable)
+          .draggable(options);
+      plugin.selectAll();
+
+      plugin.mouseStart(draggable, createMouseEvent(10, 10));
+      plugin.mouseDrag(draggable, createMouseEvent(20, 20));
+
+      assertEquals(4, calls.size());
+      assertEquals("measure first", calls.get(0));
+      assertEquals("measure second", calls.get(1));
+      assertEquals("mutate first", calls.get(2));
+      assertEquals("mutate second", calls.get(3));
+
+      plugin.mouseStop(draggable, createMouseEvent(20, 20));
+      plugin.unselectAll();
+
+      $(other).as(Draggable.Draggable).destroy();
+      $(other).remove();
+    } finally {
+      Draggable.unregisterDraggablePlugin("measureBeforeMutateTest");
+    }
+  }
+
+  public void testDragStepReusesInstances() {
+    final InstanceCounter contexts = new InstanceCounter();
+    final InstanceCounter dragEvents = new InstanceCounter();
+
+    DraggableOptions options = new DraggableOptions();
+    options.setOnDrag(new DragFunction() {
+      public void f(DragContext context) {
+        contexts.add(context);
+      }
+    });
+
+    Draggable plugin = $(draggable).as(Draggable.Draggable).draggable(options,
+        new HasHandlers() {
+          public void fireEvent(GwtEvent<?> event) {
+            // mouseStart fires other events, only the drag steps are counted
+            if (event instanceof DragEvent) {
+              dragEvents.add(event);
+            }
+          }
+        });
+    DraggableHandler handler = DraggableHandler.getInstance(draggable);
+
+    plugin.mouseStart(draggable, createMouseEvent(10, 10));
+
+    InstanceCounter positions = new InstanceCounter();
+    InstanceCounter offsets = new InstanceCounter();
+    InstanceCounter absolutePositions = new InstanceCounter();
+
+    plugin.mouseDrag(draggable, createMouseEvent(11, 12));
+    int firstTop = handler.getPosition().top;
+
+    for (int i = 2; i <= 20; i++) {
+      plugin.mouseDrag(draggable, createMouseEvent(10 + i, 10 + 2 * i));
+
+      positions.add(handler.getPosition());
+      offsets.add(handler.getOffset());
+      absolutePositions.add(handler.getAbsolutePosition());
+    }
+
+    // the same instances are used by all the drag steps
+    assertEquals(1, contexts.count());
+    assertEquals(1, dragEvents.count());
+    assertEquals(1, positions.count());
+    assertEquals(1, offsets.count());
+    assertEquals(1, absolutePositions.count());
+    assertSame(handler.getDragContext(), contexts.instances.get(0));
+
+    // the positions are still updated
+    assertEquals(38, handler.getPosition().top - firstTop);
+
+    plugin.mouseStop(draggable, createMouseEvent(30, 50));
+    assertNull(handler.getDragContext());
+  }
+
+  public void testSelectAllFiresOneEvent() {
+    final List<DraggableSelectionChangedEvent> events =
+        new ArrayList<DraggableSelectionChangedEvent>();
+    final List<Element> perElementEvents = new ArrayList<Element>();
+
+    Element other = Document.get().createDivElement();
+    body.appendChild(other);
+
+    DraggableOptions options = new DraggableOptions();
+    options.setOnSelected(new Function() {
+      @Override
+      public void f(Element e) {
+        perElementEvents.add(e);
+      }
+    });
+
+    Draggable plugin = $(draggable).add($(other)).as(Draggable.Draggable)
+        .draggable(options, new HasHandlers() {
+          public void fireEvent(GwtEvent<?> event) {
+            if (event instanceof DraggableSelectionChangedEvent) {
+              events.add((DraggableSelectionChangedEvent) event);
+            }
+          }
+        });
+
+    plugin.selectAll();
+    assertEquals(1, events.size());
+    assertEquals(2, events.get(0).getSelectedDraggables().size());
+    assertSame(draggable, events.get(0).getSelectedDraggables().get(0));
+    assertSame(other, events.get(0).getSelectedDraggables().get(1));
+    // per-element events are opt-in
+    assertTrue(perElementEvents.isEmpty());
+
+    plugin.unselectAll();
+    assertEquals(2, events.size());
+    assertEquals(2, events.get(1).getUnselectedDraggables().size());
+    assertTrue(Draggable.selectedDraggables.isEmpty());
+
+    $(other).as(Draggable.Draggable).destroy();
+    $(other).remove();
+  }
+
+  public void testClickSelectionFiresPerElementEvents() {
+    final List<Element> selected = new ArrayList<Element>();
+    final List<Element> unselected = new ArrayList<Element>();
+
+    Element other = Document.get().createDivElement();
+    body.appendChild(other);
+
+    DraggableOptions options = new DraggableOptions();
+    options.setMultipleSelection(true);
+    options.setOnSelected(new Function() {
+      @Override
+      public void f(Element e) {
+        selected.add(e);
+      }
+    });
+    options.setOnUnselected(new Function() {
+      @Override
+      public void f(Element e) {
+        unselected.add(e);
+      }
+    });
+
+    Draggable plugin = $(draggable).add($(other)).as(Draggable.Draggable)
+        .draggable(options);
+    plugin.selectAll();
+    assertTrue(selected.isEmpty());
+
+    // a click without drag keeps only the clicked draggable selected, the
+    // callbacks are called without the selectionEventPerElement option
+    plugin.mouseClick(draggable, createMouseEvent(10, 10));
+    assertEquals(2, unselected.size());
+    assertEquals(1, selected.size());
+    assertSame(draggable, selected.get(0));
+
+    plugin.unselectAll();
+    $(other).as(Draggable.Draggable).destroy();
+    $(other).remove();
+  }
+
+  @Override
+  protected void gwtSetUp() throws Exception {
+    draggable = Document.get().createDivElement();
+    body.appendChild(draggable);
+  }
+
+  @Override
+  protected void gwtTearDown() throws Exception {
+    $(draggable).as(Draggable.Draggable).destroy();
+    $(draggable).remove();
+  }
 
 }
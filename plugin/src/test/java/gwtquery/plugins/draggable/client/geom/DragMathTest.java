@@ -0,0 +1,53 @@
+package gwtquery.plugins.draggable.client.geom;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test class for {@link DragMath}
+ */
+public class DragMathTest {
+
+  @Test
+  public void testClamp() {
+    assertEquals(10, DragMath.clamp(5, 10, 20));
+    assertEquals(15, DragMath.clamp(15, 10, 20));
+    assertEquals(20, DragMath.clamp(25, 10, 20));
+    // the maximum wins if the containment is smaller than the helper
+    assertEquals(5, DragMath.clamp(15, 10, 5));
+  }
+
+  @Test
+  public void testContain() {
+    // the click is 5px from the edge of the helper
+    assertEquals(105, DragMath.contain(50, 5, 100, 200));
+    assertEquals(150, DragMath.contain(150, 5, 100, 200));
+    assertEquals(205, DragMath.contain(300, 5, 100, 200));
+  }
+
+  @Test
+  public void testConvertPosition() {
+    int position = DragMath.toPosition(150, 10, 30, 5);
+    assertEquals(115, position);
+    assertEquals(140, DragMath.toAbsolute(position, 30, 5));
+    assertEquals(position, DragMath.toRelative(140, 30, 5));
+  }
+
+  @Test
+  public void testSnapToGrid() {
+    assertEquals(100, DragMath.snapToGrid(119, 100, 20));
+    assertEquals(120, DragMath.snapToGrid(125, 100, 20));
+    assertEquals(80, DragMath.snapToGrid(61, 100, 20));
+  }
+
+  @Test
+  public void testSnapToGridInContainment() {
+    // 140 is in the containment
+    assertEquals(140, DragMath.snapToGrid(145, 100, 20, 0, 50, 150));
+    // 160 is after the containment, use the previous cell
+    assertEquals(140, DragMath.snapToGrid(165, 100, 20, 0, 50, 150));
+    // 40 is before the containment, use the next cell
+    assertEquals(60, DragMath.snapToGrid(45, 100, 20, 0, 50, 150));
+  }
+}
@@ -0,0 +1,114 @@
+package gwtquery.plugins.draggable.client.geom;
+
+import gwtquery.plugins.draggable.client.geom.GroupLayout.Direction;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Test class for {@link GroupLayout}
+ */
+public class GroupLayoutTest {
+
+  @Test
+  public void testDown() {
+    GroupLayout layout = new GroupLayout(Direction.DOWN, 2, 10, 10, 50, 20);
+
+    layout.place(30, 40);
+    assertEquals(10, layout.getLeft());
+    assertEquals(32, layout.getTop());
+
+    layout.place(30, 40);
+    assertEquals(74, layout.getTop());
+  }
+
+  @Test
+  public void testLeft() {
+    GroupLayout layout = new GroupLayout(Direction.LEFT, 2, 100, 10, 50, 20);
+
+    layout.place(30, 40);
+    assertEquals(68, layout.getLeft());
+    assertEquals(10, layout.getTop());
+  }
+
+  @Test
+  public void testRight() {
+    GroupLayout layout = new GroupLayout(Direction.RIGHT, 2, 100, 10, 50, 20);
+
+    layout.place(30, 40);
+    assertEquals(152, layout.getLeft());
+
+    layout.place(30, 40);
+    assertEquals(184, layout.getLeft());
+  }
+
+  @Test
+  public void testUp() {
+    GroupLayout layout = new GroupLayout(Direction.UP, 2, 10, 100, 50, 20);
+
+    layout.place(30, 40);
+    assertEquals(58, layout.getTop());
+  }
+
+  @Test
+  public void testFan() {
+    GroupLayout layout = new GroupLayout(Direction.FAN, 5, 10, 20, 50, 20);
+
+    layout.place(30, 40);
+    assertEquals(15, layout.getLeft());
+    assertEquals(25, layout.getTop());
+
+    layout.place(30, 40);
+    assertEquals(20, layout.getLeft());
+    assertEquals(30, layout.getTop());
+  }
+
+  @Test
+  public void testGrid() {
+    GroupLayout layout = new GroupLayout(Direction.GRID, 2, 10, 10, 50, 20);
+    int[] lefts = new int[4];
+    int[] tops = new int[4];
+
+    // 5 helpers fill a 3 columns grid with cells of 60x40
+    layout.placeAll(4, new int[]{30, 60, 10, 10}, new int[]{40, 10, 10, 10},
+        lefts, tops);
+
+    assertArrayEquals(new int[]{72, 134, 10, 72}, lefts);
+    assertArrayEquals(new int[]{10, 10, 52, 52}, tops);
+    assertEquals(72, layout.getLeft());
+    assertEquals(52, layout.getTop());
+  }
+
+  @Test
+  public void testGridCannotBePlacedOneByOne() {
+    try {
+      new GroupLayout(Direction.GRID, 2, 10, 10, 50, 20).place(30, 40);
+      fail("a grid needs the size of all the helpers");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testPlaceAllIsSameAsPlace() {
+    int[] widths = {30, 10, 25};
+    int[] heights = {40, 15, 5};
+
+    for (Direction direction : new Direction[]{Direction.DOWN, Direction.FAN,
+        Direction.LEFT, Direction.RIGHT, Direction.UP}) {
+      GroupLayout expected = new GroupLayout(direction, 3, 100, 100, 50, 20);
+      int[] lefts = new int[3];
+      int[] tops = new int[3];
+      new GroupLayout(direction, 3, 100, 100, 50, 20).placeAll(3, widths,
+          heights, lefts, tops);
+
+      for (int i = 0; i < 3; i++) {
+        expected.place(widths[i], heights[i]);
+        assertEquals(expected.getLeft(), lefts[i]);
+        assertEquals(expected.getTop(), tops[i]);
+      }
+    }
+  }
+}
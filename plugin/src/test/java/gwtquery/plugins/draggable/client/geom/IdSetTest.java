@@ -0,0 +1,45 @@
+package gwtquery.plugins.draggable.client.geom;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link IdSet}
+ */
+public class IdSetTest {
+
+  @Test
+  public void testAddAndClear() {
+    IdSet set = new IdSet(10);
+
+    assertTrue(set.add(3));
+    assertTrue(set.add(35));
+    assertFalse(set.add(3));
+    assertEquals(2, set.size());
+    assertEquals(3, set.get(0));
+    assertEquals(35, set.get(1));
+    assertTrue(set.contains(35));
+    assertFalse(set.contains(4));
+
+    set.clear();
+    assertEquals(0, set.size());
+    assertFalse(set.contains(3));
+    assertFalse(set.contains(35));
+  }
+
+  @Test
+  public void testGrow() {
+    IdSet set = new IdSet(0);
+    for (int id = 0; id < 1000; id += 7) {
+      set.add(id);
+    }
+
+    assertEquals(143, set.size());
+    assertTrue(set.contains(994));
+    assertFalse(set.contains(995));
+    assertFalse(set.contains(100000));
+  }
+}
@@ -0,0 +1,83 @@
+package gwtquery.plugins.draggable.client.geom;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link RectStore}
+ */
+public class RectStoreTest {
+
+  @Test
+  public void testAddAndSet() {
+    // the store grows past its initial capacity
+    RectStore store = new RectStore(1);
+    for (int i = 0; i < 50; i++) {
+      assertEquals(i, store.add(i * 10, i * 20, 5, 6, 100 + i));
+    }
+    assertEquals(50, store.size());
+    assertEquals(490, store.getLeft(49));
+    assertEquals(980, store.getTop(49));
+    assertEquals(495, store.getRight(49));
+    assertEquals(986, store.getBottom(49));
+    assertEquals(149, store.getId(49));
+
+    store.set(0, 1, 2, 3, 4);
+    assertEquals(1, store.getLeft(0));
+    assertEquals(4, store.getRight(0));
+    assertEquals(6, store.getBottom(0));
+    assertEquals(100, store.getId(0));
+
+    store.translate(0, -1, 10);
+    assertEquals(0, store.getLeft(0));
+    assertEquals(3, store.getRight(0));
+    assertEquals(12, store.getTop(0));
+    assertEquals(16, store.getBottom(0));
+
+    store.clear();
+    assertEquals(0, store.size());
+  }
+
+  @Test
+  public void testContains() {
+    RectStore store = new RectStore();
+    store.add(10, 20, 30, 40, 0);
+
+    assertTrue(store.contains(0, 10, 20));
+    assertTrue(store.contains(0, 39, 59));
+    // the right and bottom edges are excluded
+    assertFalse(store.contains(0, 40, 30));
+    assertFalse(store.contains(0, 20, 60));
+  }
+
+  @Test
+  public void testSameResultAsList() {
+    Random random = new Random(5);
+    List<Rect> targets = new ArrayList<Rect>();
+    for (int i = 0; i < 100; i++) {
+      targets.add(new Rect(random.nextInt(1000), random.nextInt(1000),
+          random.nextInt(120), random.nextInt(120)));
+    }
+    RectStore store = new RectStore(targets);
+
+    SnapResolver expected = new SnapResolver().init(15, true, true);
+    SnapResolver actual = new SnapResolver().init(15, true, true);
+    for (int i = 0; i < 200; i++) {
+      int left = random.nextInt(1000);
+      int top = random.nextInt(1000);
+      expected.start(left, top, 40, 40);
+      actual.start(left, top, 40, 40);
+
+      assertEquals(expected.resolve(targets), actual.resolve(store));
+      assertEquals(expected.getLeft(), actual.getLeft());
+      assertEquals(expected.getTop(), actual.getTop());
+    }
+  }
+}
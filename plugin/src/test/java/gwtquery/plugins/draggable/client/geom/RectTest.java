@@ -0,0 +1,24 @@
+package gwtquery.plugins.draggable.client.geom;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link Rect}
+ */
+public class RectTest {
+
+  @Test
+  public void testContains() {
+    Rect rect = new Rect(10, 20, 30, 40);
+
+    assertTrue(rect.contains(10, 20));
+    assertTrue(rect.contains(39, 59));
+    // the right and bottom edges are excluded
+    assertFalse(rect.contains(40, 30));
+    assertFalse(rect.contains(20, 60));
+    assertFalse(rect.contains(9, 30));
+  }
+}
@@ -0,0 +1,113 @@
+package gwtquery.plugins.draggable.client.geom;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link SnapEdges}
+ */
+public class SnapEdgesTest {
+
+  private static void assertSameSnap(List<Rect> targets, boolean inner,
+                                     boolean outer, Random random) {
+    SnapEdges edges = new SnapEdges(new RectStore(targets));
+    SnapResolver expected = new SnapResolver().init(15, inner, outer);
+    SnapResolver actual = new SnapResolver().init(15, inner, outer);
+
+    for (int i = 0; i < 500; i++) {
+      int left = random.nextInt(1200) - 100;
+      int top = random.nextInt(1200) - 100;
+      int width = 1 + random.nextInt(80);
+      int height = 1 + random.nextInt(80);
+
+      expected.start(left, top, width, height);
+      actual.start(left, top, width, height);
+
+      assertEquals(expected.resolve(targets), actual.resolve(edges));
+      assertEquals(expected.isSnappedLeft(), actual.isSnappedLeft());
+      assertEquals(expected.isSnappedTop(), actual.isSnappedTop());
+      assertEquals(expected.getLeft(), actual.getLeft());
+      assertEquals(expected.getTop(), actual.getTop());
+    }
+  }
+
+  private static List<Rect> randomTargets(Random random, int count) {
+    List<Rect> targets = new ArrayList<Rect>();
+    for (int i = 0; i < count; i++) {
+      targets.add(new Rect(random.nextInt(1000) - 50, random.nextInt(1000)
+          - 50, random.nextInt(120), random.nextInt(120)));
+    }
+    return targets;
+  }
+
+  @Test
+  public void testEmpty() {
+    SnapResolver resolver = new SnapResolver().init(10, true, true);
+    resolver.start(0, 0, 10, 10);
+    assertFalse(resolver.resolve(new SnapEdges(new RectStore())));
+  }
+
+  @Test
+  public void testGuideLines() {
+    // vertical guides of 1px, the last one in range wins
+    List<Rect> targets = new ArrayList<Rect>();
+    for (int i = 0; i < 1000; i++) {
+      targets.add(new Rect(i * 10, 0, 1, 2000));
+    }
+
+    SnapResolver resolver = new SnapResolver().init(4, true, false);
+    resolver.start(203, 100, 30, 30);
+    assertTrue(resolver.resolve(new SnapEdges(new RectStore(targets))));
+
+    assertTrue(resolver.isSnappedLeft());
+    assertFalse(resolver.isSnappedTop());
+    // the guides at 200 and 230 both snap the helper, the last one wins
+    assertEquals(201, resolver.getLeft());
+  }
+
+  @Test
+  public void testSameResultAsFullScan() {
+    Random random = new Random(42);
+    for (int count : new int[]{1, 10, 300}) {
+      List<Rect> targets = randomTargets(random, count);
+      assertSameSnap(targets, true, false, random);
+      assertSameSnap(targets, false, true, random);
+      assertSameSnap(targets, true, true, random);
+    }
+  }
+
+  @Test
+  public void testSameResultWithGuides() {
+    Random random = new Random(3);
+    List<Rect> targets = new ArrayList<Rect>();
+    for (int i = 0; i < 200; i++) {
+      if (random.nextBoolean()) {
+        targets.add(new Rect(random.nextInt(1000), 0, 1, 1000));
+      } else {
+        targets.add(new Rect(0, random.nextInt(1000), 1000, 1));
+      }
+    }
+    assertSameSnap(targets, true, false, random);
+    assertSameSnap(targets, false, true, random);
+    assertSameSnap(targets, true, true, random);
+  }
+
+  @Test
+  public void testSameResultOnBoard() {
+    // a board of adjacent cells, sharing their edges
+    List<Rect> targets = new ArrayList<Rect>();
+    for (int row = 0; row < 20; row++) {
+      for (int column = 0; column < 20; column++) {
+        targets.add(new Rect(column * 50, row * 50, 50, 50));
+      }
+    }
+    assertSameSnap(targets, true, true, new Random(7));
+  }
+}
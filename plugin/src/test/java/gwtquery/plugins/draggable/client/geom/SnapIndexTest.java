@@ -0,0 +1,168 @@
+package gwtquery.plugins.draggable.client.geom;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Test class for {@link SnapIndex}
+ */
+public class SnapIndexTest {
+
+  private static void assertSameSnap(List<Rect> targets, boolean inner,
+                                     boolean outer, Random random) {
+    assertSameSnap(targets, new SnapIndex(new RectStore(targets)), inner,
+        outer, random);
+  }
+
+  private static void assertSameSnap(List<Rect> targets, SnapIndex index,
+                                     boolean inner, boolean outer,
+                                     Random random) {
+    SnapResolver expected = new SnapResolver().init(15, inner, outer);
+    SnapResolver actual = new SnapResolver().init(15, inner, outer);
+
+    for (int i = 0; i < 500; i++) {
+      int left = random.nextInt(1200) - 100;
+      int top = random.nextInt(1200) - 100;
+      int width = 1 + random.nextInt(80);
+      int height = 1 + random.nextInt(80);
+
+      expected.start(left, top, width, height);
+      actual.start(left, top, width, height);
+
+      assertEquals(expected.resolve(targets), actual.resolve(index));
+      assertEquals(expected.isSnappedLeft(), actual.isSnappedLeft());
+      assertEquals(expected.isSnappedTop(), actual.isSnappedTop());
+      assertEquals(expected.getLeft(), actual.getLeft());
+      assertEquals(expected.getTop(), actual.getTop());
+    }
+  }
+
+  private static Rect randomTarget(Random random) {
+    return new Rect(random.nextInt(1000) - 50, random.nextInt(1000) - 50,
+        random.nextInt(120), random.nextInt(120));
+  }
+
+  private static List<Rect> randomTargets(Random random, int count) {
+    List<Rect> targets = new ArrayList<Rect>();
+    for (int i = 0; i < count; i++) {
+      targets.add(randomTarget(random));
+    }
+    return targets;
+  }
+
+  @Test
+  public void testEmpty() {
+    SnapIndex index = new SnapIndex(new RectStore());
+    assertEquals(0, index.query(0, 0, 100, 100));
+
+    SnapResolver resolver = new SnapResolver().init(10, true, true);
+    resolver.start(0, 0, 10, 10);
+    assertFalse(resolver.resolve(index));
+  }
+
+  @Test
+  public void testCandidatesInListOrder() {
+    List<Rect> targets = new ArrayList<Rect>();
+    targets.add(new Rect(500, 500, 10, 10));
+    targets.add(new Rect(0, 0, 600, 600));
+    targets.add(new Rect(0, 0, 10, 10));
+
+    SnapIndex index = new SnapIndex(new RectStore(targets));
+    assertEquals(3, index.query(0, 0, 600, 600));
+    assertEquals(0, index.getCandidateIndex(0));
+    assertEquals(1, index.getCandidateIndex(1));
+    assertEquals(2, index.getCandidateIndex(2));
+
+    assertEquals(2, index.query(0, 0, 20, 20));
+    assertEquals(1, index.getCandidateIndex(0));
+    assertEquals(2, index.getCandidateIndex(1));
+  }
+
+  @Test
+  public void testPointQuery() {
+    List<Rect> targets = new ArrayList<Rect>();
+    for (int i = 0; i < 100; i++) {
+      targets.add(new Rect((i % 10) * 50, (i / 10) * 50, 50, 50));
+    }
+
+    RectStore store = new RectStore(targets);
+    SnapIndex index = new SnapIndex(store);
+    int count = index.query(125, 75, 125, 75);
+    int found = -1;
+    for (int i = 0; i < count; i++) {
+      int candidate = index.getCandidateIndex(i);
+      if (store.contains(candidate, 125, 75)) {
+        found = store.getId(candidate);
+      }
+    }
+    assertEquals(12, found);
+    // only the neighbourhood of the point is tested
+    assertTrue(count < targets.size());
+  }
+
+  @Test
+  public void testSameResultAsFullScan() {
+    Random random = new Random(42);
+    for (int count : new int[]{1, 10, 300}) {
+      List<Rect> targets = randomTargets(random, count);
+      assertSameSnap(targets, true, false, random);
+      assertSameSnap(targets, false, true, random);
+      assertSameSnap(targets, true, true, random);
+    }
+  }
+
+  @Test
+  public void testSameResultOnBoard() {
+    // a board of adjacent cells, sharing their edges
+    List<Rect> targets = new ArrayList<Rect>();
+    for (int row = 0; row < 20; row++) {
+      for (int column = 0; column < 20; column++) {
+        targets.add(new Rect(column * 50, row * 50, 50, 50));
+      }
+    }
+    assertSameSnap(targets, true, true, new Random(7));
+  }
+
+  @Test
+  public void testInvalidate() {
+    Random random = new Random(3);
+    List<Rect> targets = randomTargets(random, 200);
+    RectStore store = new RectStore(targets);
+    SnapIndex index = new SnapIndex(store);
+
+    // a few changes are tested one by one, more changes rebuild the grid
+    for (int changes : new int[]{5, 100}) {
+      for (int i = 0; i < changes; i++) {
+        int target = random.nextInt(targets.size());
+        Rect rect = randomTarget(random);
+        targets.set(target, rect);
+        store.set(target, rect.getLeft(), rect.getTop(), rect.getWidth(),
+            rect.getHeight());
+        index.invalidate(target);
+      }
+      Rect rect = randomTarget(random);
+      targets.add(rect);
+      index.invalidate(store.add(rect.getLeft(), rect.getTop(),
+          rect.getWidth(), rect.getHeight(), targets.size() - 1));
+
+      assertSameSnap(targets, index, true, true, random);
+    }
+  }
+
+  @Test
+  public void testInvalidateEmpty() {
+    RectStore store = new RectStore();
+    SnapIndex index = new SnapIndex(store);
+
+    index.invalidate(store.add(0, 0, 10, 10, 0));
+    assertEquals(1, index.query(5, 5, 5, 5));
+    assertEquals(0, index.getCandidateIndex(0));
+  }
+}
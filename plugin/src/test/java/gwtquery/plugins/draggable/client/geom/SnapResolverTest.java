@@ -0,0 +1,68 @@
+package gwtquery.plugins.draggable.client.geom;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link SnapResolver}
+ */
+public class SnapResolverTest {
+
+  private final Rect target = new Rect(100, 100, 50, 50);
+
+  @Test
+  public void testInnerEdges() {
+    SnapResolver resolver = new SnapResolver().init(10, true, false);
+    resolver.start(105, 95, 20, 20);
+    resolver.snap(target);
+
+    assertTrue(resolver.isSnappedLeft());
+    assertTrue(resolver.isSnappedTop());
+    assertEquals(100, resolver.getLeft());
+    assertEquals(100, resolver.getTop());
+  }
+
+  @Test
+  public void testLastTargetWins() {
+    List<Rect> targets = new ArrayList<Rect>();
+    targets.add(target);
+    targets.add(new Rect(103, 0, 100, 300));
+
+    SnapResolver resolver = new SnapResolver().init(10, true, false);
+    resolver.start(105, 95, 20, 20);
+    assertTrue(resolver.resolve(targets));
+
+    assertEquals(103, resolver.getLeft());
+    assertEquals(100, resolver.getTop());
+  }
+
+  @Test
+  public void testOuterEdges() {
+    SnapResolver resolver = new SnapResolver().init(10, false, true);
+    // the helper is just above the target
+    resolver.start(120, 75, 20, 20);
+    resolver.snap(target);
+
+    assertFalse(resolver.isSnappedLeft());
+    assertTrue(resolver.isSnappedTop());
+    assertEquals(80, resolver.getTop());
+    assertEquals(120, resolver.getLeft());
+  }
+
+  @Test
+  public void testOutOfTolerance() {
+    SnapResolver resolver = new SnapResolver().init(10, true, true);
+    resolver.start(300, 300, 20, 20);
+    resolver.snap(target);
+
+    assertFalse(resolver.isSnapped());
+    assertEquals(300, resolver.getLeft());
+    assertEquals(300, resolver.getTop());
+  }
+}